@@ -0,0 +1,56 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CompressedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.DualLayoutAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.MappedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.PackedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Создание памяти для бенчмарков по имени реализации, заполненной псевдослучайными данными.
+ */
+final class BenchmarkMemories {
+    static final int WORD_WIDTH = 16;
+    static final long SEED = 42;
+
+    private BenchmarkMemories() {
+
+    }
+
+    static AssociativeMemory create(String implementation, int words) throws IOException {
+        AssociativeMemory memory = switch (implementation) {
+            case "packed" -> new PackedAssociativeMemory(words, WORD_WIDTH);
+            case "dual" -> new DualLayoutAssociativeMemory(words, WORD_WIDTH);
+            case "compressed" -> new CompressedAssociativeMemory(words, WORD_WIDTH);
+            case "mapped" -> {
+                Path file = Files.createTempFile("associative-memory", ".asm");
+                file.toFile().deleteOnExit();
+                yield MappedAssociativeMemory.create(file, words, WORD_WIDTH);
+            }
+            default -> throw new IllegalArgumentException("unknown implementation: " + implementation);
+        };
+        fill(memory, new Random(SEED));
+        return memory;
+    }
+
+    static void fill(AssociativeMemory memory, Random random) {
+        long[] slice = new long[BitSlices.length(memory.wordCount())];
+        for (int k = 0; k < memory.wordWidth(); k++) {
+            for (int i = 0; i < slice.length; i++) {
+                slice[i] = random.nextLong();
+            }
+            memory.setSlice(k, slice);
+        }
+    }
+
+    static void release(AssociativeMemory memory) throws IOException {
+        if (memory instanceof Closeable closeable) closeable.close();
+    }
+}
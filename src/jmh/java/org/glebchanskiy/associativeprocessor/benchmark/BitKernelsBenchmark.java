@@ -0,0 +1,83 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.kernel.BitKernels;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скалярные и векторные циклы над срезами памяти из words слов: логическая операция
+ * (execSliceLogicalOperation), разряд сравнения и сложения (maskedSum), разряд сравнения
+ * с границей (getSlicesInInterval/searchInRanges).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitKernelsBenchmark {
+
+    @Param({"65536", "1048576", "16777216"})
+    public int words;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    private BitKernels bitKernels;
+    private long[] first;
+    private long[] second;
+    private long[] carry;
+    private long[] result;
+    private long[] tags;
+
+    @Setup
+    public void setUp() {
+        bitKernels = kernels.equals("vector") ? BitKernels.vector() : BitKernels.scalar();
+        int length = BitSlices.length(words);
+        Random random = new Random(BenchmarkMemories.SEED);
+        first = random.longs(length).toArray();
+        second = random.longs(length).toArray();
+        carry = new long[length];
+        result = new long[length];
+        tags = random.longs(length).toArray();
+    }
+
+    @Benchmark
+    public long[] logic() {
+        bitKernels.logic(LogicOperationType.FUNC_6, first, second, result, 0, result.length);
+        return result;
+    }
+
+    @Benchmark
+    public long[] match() {
+        System.arraycopy(second, 0, result, 0, result.length);
+        bitKernels.match(result, first, -1L, 0, result.length);
+        return result;
+    }
+
+    @Benchmark
+    public long[] addBit() {
+        bitKernels.addBit(first, second, carry, result, tags, false, 0, result.length);
+        return result;
+    }
+
+    @Benchmark
+    public long[] rangeBit() {
+        bitKernels.rangeBit(carry, result, first, 0, result.length, true);
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Исходная память Boolean[16][16] - точка отсчёта для сравнения с упакованными реализациями.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoxedMemoryBenchmark {
+
+    private AssociativeMemory memory;
+    private AssociativeProcessor processor;
+    private int address;
+
+    @Setup
+    public void setUp() {
+        memory = new AssociativeMemoryImpl();
+        BenchmarkMemories.fill(memory, new Random(BenchmarkMemories.SEED));
+        processor = new AssociativeProcessorImpl(memory);
+    }
+
+    private int nextAddress() {
+        address = (address + 7) & 15;
+        return address;
+    }
+
+    @Benchmark
+    public Boolean get() {
+        int j = nextAddress();
+        return memory.get(j, j);
+    }
+
+    @Benchmark
+    public void set() {
+        int j = nextAddress();
+        memory.set(j, j, (j & 1) == 0);
+    }
+
+    @Benchmark
+    public long read() {
+        return memory.getWord(nextAddress());
+    }
+
+    @Benchmark
+    public void write() {
+        int j = nextAddress();
+        memory.setWord(j, j);
+    }
+
+    @Benchmark
+    public void maskedSum() {
+        processor.maskedSum();
+    }
+
+    @Benchmark
+    public void getSlicesInInterval() {
+        processor.getSlicesInInterval(0, 1);
+    }
+}
@@ -0,0 +1,99 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CompressedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.PackedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.search.MatchSearch;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.RangeSearch;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск с маской, поиск по интервалу и логическая операция над срезами в упакованной
+ * и в сжатой памяти на данных разной плотности: sparse - 0,1% ненулевых слов,
+ * sorted - возрастающие значения (длинные отрезки в старших срезах), random - случайные слова.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressedMemoryBenchmark {
+
+    @Param({"1048576"})
+    public int words;
+
+    @Param({"packed", "compressed"})
+    public String layout;
+
+    @Param({"sparse", "sorted", "random"})
+    public String data;
+
+    private static final Field FIELD = new Field("F", 0, 8);
+
+    private MatchSearch matchSearch;
+    private RangeSearch rangeSearch;
+    private AssociativeProcessor processor;
+    private long comparand;
+
+    @Setup
+    public void setUp() {
+        int width = BenchmarkMemories.WORD_WIDTH;
+        PackedAssociativeMemory packed = new PackedAssociativeMemory(words, width);
+        Random random = new Random(BenchmarkMemories.SEED);
+        long mask = (1L << width) - 1;
+        for (int j = 0; j < words; j++) {
+            long word = switch (data) {
+                case "sparse" -> random.nextInt(1000) == 0 ? random.nextLong() & mask : 0;
+                case "sorted" -> (long) j * mask / words;
+                case "random" -> random.nextLong() & mask;
+                default -> throw new IllegalArgumentException("unknown data: " + data);
+            };
+            packed.setWord(j, word);
+        }
+        comparand = packed.getWord(words / 2);
+        AssociativeMemory memory = switch (layout) {
+            case "packed" -> packed;
+            case "compressed" -> new CompressedAssociativeMemory(packed);
+            default -> throw new IllegalArgumentException("unknown layout: " + layout);
+        };
+        matchSearch = new MatchSearch(memory);
+        rangeSearch = new RangeSearch(memory);
+        processor = new AssociativeProcessorImpl(memory);
+    }
+
+    @Benchmark
+    public TagVector match() {
+        return matchSearch.search(comparand, -1L >>> (Long.SIZE - BenchmarkMemories.WORD_WIDTH));
+    }
+
+    @Benchmark
+    public TagVector range() {
+        return rangeSearch.search(FIELD, Range.closed(16, 200));
+    }
+
+    @Benchmark
+    public AssociativeProcessor logic() {
+        processor.execSliceLogicalOperation(0, 1, 2, LogicOperationType.FUNC_1);
+        return processor;
+    }
+}
@@ -0,0 +1,115 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.ConcurrentAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Несколько процессоров (по одному на поток) над общей ConcurrentAssociativeMemory.
+ * search1/search2/search4 - только поиск, пропускная способность должна расти с числом потоков.
+ * readHeavy - три потока поиска и один поток записи срезов.
+ * stripes = 1 соответствует одной блокировке на всю память.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMemoryBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int words;
+
+    @Param({"1", "16"})
+    public int stripes;
+
+    private AssociativeMemory shared;
+
+    @Setup
+    public void setUp() throws IOException {
+        shared = new ConcurrentAssociativeMemory(BenchmarkMemories.create("packed", words), stripes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkMemories.release(((ConcurrentAssociativeMemory) shared).delegate());
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        private final Field word = new Field("word", 0, BenchmarkMemories.WORD_WIDTH);
+        private AssociativeProcessor processor;
+        private long[] slice;
+
+        @Setup
+        public void setUp(ConcurrentMemoryBenchmark benchmark) {
+            processor = new AssociativeProcessorImpl(benchmark.shared, WordLayout.DEFAULT);
+            slice = benchmark.shared.getSlice(0);
+        }
+
+        TagVector search() {
+            return processor.searchInRanges(word, Range.closed(1000, 20000), Range.open(40000, 50000));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TagVector search1(Worker worker) {
+        return worker.search();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public TagVector search2(Worker worker) {
+        return worker.search();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TagVector search4(Worker worker) {
+        return worker.search();
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(3)
+    public TagVector readHeavySearch(Worker worker) {
+        return worker.search();
+    }
+
+    /**
+     * Переписывает младший разряд слов (slice WORD_WIDTH - 1) тем же содержимым,
+     * чтобы данные и результаты поиска не менялись между итерациями.
+     */
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public void readHeavyWrite(Worker worker) {
+        shared.getSlice(BenchmarkMemories.WORD_WIDTH - 1, worker.slice);
+        shared.setSlice(BenchmarkMemories.WORD_WIDTH - 1, worker.slice);
+    }
+}
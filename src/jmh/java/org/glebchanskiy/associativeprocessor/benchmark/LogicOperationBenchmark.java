@@ -0,0 +1,76 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Все 16 логических функций: трёхадресная форма над срезами всех слов
+ * и двухадресная форма через буферный регистр. threads - размер пула для шардов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogicOperationBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    public int words;
+
+    @Param({"packed", "mapped", "dual"})
+    public String implementation;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param
+    public LogicOperationType operation;
+
+    private AssociativeMemory memory;
+    private ForkJoinPool pool;
+    private AssociativeProcessor processor;
+
+    @Setup
+    public void setUp() throws IOException {
+        memory = BenchmarkMemories.create(implementation, words);
+        pool = new ForkJoinPool(threads);
+        processor = new AssociativeProcessorImpl(memory, WordLayout.DEFAULT, new ShardedExecutor(pool, threads));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        BenchmarkMemories.release(memory);
+    }
+
+    @Benchmark
+    public void sliceLogic() {
+        processor.execSliceLogicalOperation(15, 0, 1, operation);
+    }
+
+    @Benchmark
+    public void wordLogic() {
+        processor.execLogicalOperation(1, operation);
+    }
+}
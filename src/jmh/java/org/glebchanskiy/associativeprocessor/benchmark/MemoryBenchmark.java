@@ -0,0 +1,86 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Доступ к памяти: побитовый get/set, чтение/запись слова по диагонали и чтение среза.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    public int words;
+
+    @Param({"packed", "mapped", "dual"})
+    public String implementation;
+
+    private AssociativeMemory memory;
+    private long[] slice;
+    private int address;
+
+    @Setup
+    public void setUp() throws IOException {
+        memory = BenchmarkMemories.create(implementation, words);
+        slice = new long[BitSlices.length(words)];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkMemories.release(memory);
+    }
+
+    private int nextAddress() {
+        address = (address + 7919) % words;
+        return address;
+    }
+
+    @Benchmark
+    public Boolean get() {
+        int j = nextAddress();
+        return memory.get(j % BenchmarkMemories.WORD_WIDTH, j);
+    }
+
+    @Benchmark
+    public void set() {
+        int j = nextAddress();
+        memory.set(j % BenchmarkMemories.WORD_WIDTH, j, (j & 1) == 0);
+    }
+
+    @Benchmark
+    public long read() {
+        return memory.getWord(nextAddress());
+    }
+
+    @Benchmark
+    public void write() {
+        int j = nextAddress();
+        memory.setWord(j, j);
+    }
+
+    @Benchmark
+    public long[] readSlice() {
+        memory.getSlice(nextAddress() % BenchmarkMemories.WORD_WIDTH, slice);
+        return slice;
+    }
+}
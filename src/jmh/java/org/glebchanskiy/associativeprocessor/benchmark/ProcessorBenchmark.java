@@ -0,0 +1,81 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции процессора над всей памятью: арифметика с маской и поиск по интервалам.
+ * threads - размер пула для шардов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessorBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    public int words;
+
+    @Param({"packed", "mapped", "dual"})
+    public String implementation;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private AssociativeMemory memory;
+    private ForkJoinPool pool;
+    private AssociativeProcessor processor;
+    private final Field word = new Field("word", 0, BenchmarkMemories.WORD_WIDTH);
+
+    @Setup
+    public void setUp() throws IOException {
+        memory = BenchmarkMemories.create(implementation, words);
+        pool = new ForkJoinPool(threads);
+        processor = new AssociativeProcessorImpl(memory, WordLayout.DEFAULT, new ShardedExecutor(pool, threads));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        BenchmarkMemories.release(memory);
+    }
+
+    @Benchmark
+    public void maskedSum() {
+        processor.maskedSum();
+    }
+
+    @Benchmark
+    public void getSlicesInInterval() {
+        processor.getSlicesInInterval(0, 1);
+    }
+
+    @Benchmark
+    public TagVector searchInRanges() {
+        return processor.searchInRanges(word, Range.closed(1000, 20000), Range.open(40000, 50000));
+    }
+}
@@ -0,0 +1,80 @@
+package org.glebchanskiy.associativeprocessor.benchmark;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.PackedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.VersionedAssociativeMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контрольная точка перед пачкой из writes записей слов и откат после неё:
+ * снимок copy-on-write против полной копии упакованной памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int words;
+
+    @Param({"1", "64", "4096"})
+    public int writes;
+
+    private PackedAssociativeMemory packed;
+    private VersionedAssociativeMemory versioned;
+    private int address;
+
+    @Setup
+    public void setUp() {
+        packed = new PackedAssociativeMemory(words, BenchmarkMemories.WORD_WIDTH);
+        BenchmarkMemories.fill(packed, new Random(BenchmarkMemories.SEED));
+        versioned = new VersionedAssociativeMemory(packed);
+    }
+
+    private void batch(AssociativeMemory memory) {
+        for (int i = 0; i < writes; i++) {
+            address = (address + 7919) % words;
+            memory.setWord(address, address);
+        }
+    }
+
+    @Benchmark
+    public AssociativeMemory copyRollback() {
+        PackedAssociativeMemory checkpoint = new PackedAssociativeMemory(packed);
+        batch(packed);
+        packed = checkpoint;
+        return checkpoint;
+    }
+
+    @Benchmark
+    public AssociativeMemory snapshotRollback() {
+        VersionedAssociativeMemory.Snapshot checkpoint = versioned.snapshot();
+        batch(versioned);
+        versioned.rollback(checkpoint);
+        return checkpoint;
+    }
+
+    @Benchmark
+    public BitSet snapshotDiff() {
+        VersionedAssociativeMemory.Snapshot checkpoint = versioned.snapshot();
+        batch(versioned);
+        return versioned.diff(checkpoint);
+    }
+}
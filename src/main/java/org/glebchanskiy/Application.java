@@ -7,14 +7,58 @@ import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory
 import org.glebchanskiy.associativeprocessor.enums.Load;
 import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
 import org.glebchanskiy.associativeprocessor.enums.Store;
+import org.glebchanskiy.associativeprocessor.io.MemoryExporter;
+import org.glebchanskiy.associativeprocessor.program.Program;
+import org.glebchanskiy.associativeprocessor.program.ProgramResult;
+import org.glebchanskiy.associativeprocessor.query.QueryProcessor;
+import org.glebchanskiy.associativeprocessor.server.LoadGenerator;
+import org.glebchanskiy.associativeprocessor.server.QueryServer;
+import org.glebchanskiy.associativeprocessor.trace.Trace;
+import org.glebchanskiy.associativeprocessor.workload.WorkloadRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 public class Application {
 
-    public static void main(String... args) {
+    /**
+     * Без аргументов - демонстрация заданий.
+     * serve [порт] [слов] [окно, мкс] - сервис запросов, load [порт] [клиенты] [секунды] ... - генератор нагрузки,
+     * workload [слов] [распределение] [доли операций] ... - сквозной прогон нагрузки без сети,
+     * query "WHERE ... SET ..." [слов] [параметр=значение ...] - план и выполнение запроса,
+     * export binary|csv|hex [слов] [файл] - потоковая выгрузка памяти.
+     */
+    public static void main(String... args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            QueryServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("load")) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("workload")) {
+            WorkloadRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("query")) {
+            QueryProcessor.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            MemoryExporter.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         printTask0();
         printTask1();
         printTask2();
         printTask3();
+
+        if (Trace.ENABLED) {
+            System.out.println("____".repeat(25));
+            System.out.println("TRACE [последние " + Trace.buffer().capacity() + " событий из " + Trace.buffer().recorded() + "]");
+            System.out.print(Trace.buffer().dump());
+        }
     }
 
     private static void printTask0() {
@@ -24,7 +68,7 @@ public class Application {
         System.out.println("Associative Memory Array: " + memory);
 
         System.out.println("\nИз-за сложности восприятия диагональной адресации, далее будет применяться формат Нормального отображения:");
-        System.out.println("(Логи чтения из памяти появляются из-за использования метода read в memoryAsNormal()\n");
+        System.out.println("(Чтения из памяти методом read в memoryAsNormal() попадают в трассировку, см. -Dassociativeprocessor.trace=true)\n");
         System.out.println(processor.memoryAsNormal());
     }
 
@@ -39,35 +83,41 @@ public class Application {
         System.out.println(processor.memoryAsNormal());
         System.out.println();
 
+        Program program = new Program();
+
         System.out.println("f2 | x1*!x2 | Запрет 1-го аргумента (НЕТ):");
         System.out.println("0x2 = f2(0x0, 0x1)");
-        processor.loadBitSlice(0x0, Load.TO_BUFFER_REGISTER);
-        processor.execLogicalOperation(0x1, LogicOperationType.FUNC_2);
-        processor.storeBitSlice(0x2, Store.FROM_BUFFER_REGISTER);
+        program.load(0x0, Load.TO_BUFFER_REGISTER)
+                .logic(0x1, LogicOperationType.FUNC_2)
+                .store(0x2, Store.FROM_BUFFER_REGISTER);
 
         System.out.println();
 
         System.out.println("f7 | x1+x2 | Дизьюнкция (ИЛИ):");
         System.out.println("0x5 = f7(0x3, 0x4)");
-        processor.loadBitSlice(0x3, Load.TO_BUFFER_REGISTER);
-        processor.execLogicalOperation(0x4, LogicOperationType.FUNC_7);
-        processor.storeBitSlice(0x5, Store.FROM_BUFFER_REGISTER);
+        program.load(0x3, Load.TO_BUFFER_REGISTER)
+                .logic(0x4, LogicOperationType.FUNC_7)
+                .store(0x5, Store.FROM_BUFFER_REGISTER);
 
         System.out.println();
 
         System.out.println("f8 | !(x1+x2) | Операция Пирса (ИЛИ-НЕ):");
         System.out.println("0x8 = f8(0x6, 0x7)");
-        processor.loadBitSlice(0x6, Load.TO_BUFFER_REGISTER);
-        processor.execLogicalOperation(0x7, LogicOperationType.FUNC_8);
-        processor.storeBitSlice(0x8, Store.FROM_BUFFER_REGISTER);
+        program.load(0x6, Load.TO_BUFFER_REGISTER)
+                .logic(0x7, LogicOperationType.FUNC_8)
+                .store(0x8, Store.FROM_BUFFER_REGISTER);
 
         System.out.println();
 
         System.out.println("f13 | !x1+x2 | Импликация от 1-го аргумента:");
         System.out.println("0xB = f13(0x9, 0xA)");
-        processor.loadBitSlice(0x9, Load.TO_BUFFER_REGISTER);
-        processor.execLogicalOperation(0xA, LogicOperationType.FUNC_13);
-        processor.storeBitSlice(0xB, Store.FROM_BUFFER_REGISTER);
+        program.load(0x9, Load.TO_BUFFER_REGISTER)
+                .logic(0xA, LogicOperationType.FUNC_13)
+                .store(0xB, Store.FROM_BUFFER_REGISTER);
+
+        ProgramResult result = processor.execute(program);
+        System.out.printf("%nПрограмма: %d инструкций (%d после слияния), %.0f инструкций/с%n",
+                result.instructions(), result.executed(), result.instructionsPerSecond());
 
         System.out.println("\n\nafter manipulations: ");
         System.out.println(processor.memoryAsNormal());
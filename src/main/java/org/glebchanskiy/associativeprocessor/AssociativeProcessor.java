@@ -1,8 +1,21 @@
 package org.glebchanskiy.associativeprocessor;
 
+import org.glebchanskiy.associativeprocessor.arithmetic.Comparison;
+import org.glebchanskiy.associativeprocessor.enums.ArithmeticOperationType;
 import org.glebchanskiy.associativeprocessor.enums.Load;
 import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
 import org.glebchanskiy.associativeprocessor.enums.Store;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.metrics.ProcessorMetrics;
+import org.glebchanskiy.associativeprocessor.program.Program;
+import org.glebchanskiy.associativeprocessor.program.ProgramResult;
+import org.glebchanskiy.associativeprocessor.registers.RegisterFile;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.stream.IntStream;
 
 public interface AssociativeProcessor {
     void loadBitSlice(int address, Load type);
@@ -13,9 +26,50 @@ public interface AssociativeProcessor {
 
     void execLogicalOperation(int address, LogicOperationType operation);
 
+    /**
+     * Трёхадресная логическая операция над разрядными срезами: срез destination = f(source1, source2).
+     * Аргументы - номера срезов в [0, wordWidth), а не адреса слов, как в execLogicalOperation.
+     */
+    void execSliceLogicalOperation(int destination, int source1, int source2, LogicOperationType operation);
+
     void maskedSum();
 
+    void execArithmeticOperation(ArithmeticOperationType operation);
+
+    TagVector add(Field x, Field y, Field result, TagVector tags);
+
+    TagVector subtract(Field x, Field y, Field result, TagVector tags);
+
+    TagVector multiply(Field x, Field y, Field result, TagVector tags);
+
+    TagVector multiply(Field x, long factor, Field result, TagVector tags);
+
+    Comparison compare(Field x, Field y, TagVector tags);
+
     void getSlicesInInterval(int addressOfLower, int addressOfUpper);
 
+    TagVector searchInRanges(Field field, Range... ranges);
+
+    TagVector searchMasked();
+
+    TagVector searchMax(Field field);
+
+    TagVector searchMin(Field field);
+
+    IntStream sortedAddresses(Field field, boolean descending);
+
+    int[] top(Field field, int k, boolean largest);
+
+    ProgramResult execute(Program program);
+
+    RegisterFile registers();
+
+    ProcessorMetrics metrics();
+
     String memoryAsNormal();
+
+    /**
+     * Нормальное отображение слов from..to-1, записываемое в out порциями.
+     */
+    void memoryAsNormal(Writer out, int from, int to) throws IOException;
 }
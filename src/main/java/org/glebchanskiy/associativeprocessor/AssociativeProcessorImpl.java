@@ -1,18 +1,53 @@
 package org.glebchanskiy.associativeprocessor;
 
+import org.glebchanskiy.associativeprocessor.arithmetic.BitSerialAlu;
+import org.glebchanskiy.associativeprocessor.arithmetic.Comparison;
 import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CompressedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CountingAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.enums.ArithmeticOperationType;
 import org.glebchanskiy.associativeprocessor.enums.Load;
 import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
 import org.glebchanskiy.associativeprocessor.enums.Store;
+import org.glebchanskiy.associativeprocessor.io.MemoryRenderer;
+import org.glebchanskiy.associativeprocessor.kernel.BitKernels;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.metrics.MemoryCounters;
+import org.glebchanskiy.associativeprocessor.metrics.OperationCost;
+import org.glebchanskiy.associativeprocessor.metrics.ProcessorMetrics;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.program.Instruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.FusedLogicInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.LoadInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.LogicInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.MoveInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.SliceLogicInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.StoreInstruction;
+import org.glebchanskiy.associativeprocessor.program.Program;
+import org.glebchanskiy.associativeprocessor.program.ProgramCompiler;
+import org.glebchanskiy.associativeprocessor.program.ProgramResult;
 import org.glebchanskiy.associativeprocessor.registers.Register;
-import org.glebchanskiy.associativeprocessor.registers.RegisterImpl;
+import org.glebchanskiy.associativeprocessor.registers.RegisterFile;
+import org.glebchanskiy.associativeprocessor.search.ExtremumSearch;
+import org.glebchanskiy.associativeprocessor.search.MatchSearch;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.RangeSearch;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.glebchanskiy.associativeprocessor.trace.Trace;
+import org.glebchanskiy.associativeprocessor.trace.TraceEvent;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.glebchanskiy.associativeprocessor.util.APUtils.*;
 
@@ -20,14 +55,101 @@ import static org.glebchanskiy.associativeprocessor.util.APUtils.*;
 public class AssociativeProcessorImpl implements AssociativeProcessor {
     private static final Logger log = LoggerFactory.getLogger(AssociativeProcessorImpl.class);
     private final AssociativeMemory memory;
+    private final WordLayout layout;
+    private final ShardedExecutor executor;
+    private final BitKernels kernels = BitKernels.get();
+    private final BitSerialAlu alu;
+    private final RangeSearch rangeSearch;
+    private final MatchSearch matchSearch;
+    private final ExtremumSearch extremumSearch;
+    private final Field wordField;
+    private final RegisterFile registers;
     private final Register bufferRegister;
     private final Register maskRegister;
+    private long[] sliceBuffer1 = new long[0];
+    private long[] sliceBuffer2 = new long[0];
+    private final ProcessorMetrics metrics;
+    private final MemoryCounters operationCounters;
+    private MemoryRenderer renderer;
+    private final Map<Load, OperationCost> loadCosts = new EnumMap<>(Load.class);
+    private final Map<Store, OperationCost> storeCosts = new EnumMap<>(Store.class);
+    private final Map<LogicOperationType, OperationCost> logicCosts = new EnumMap<>(LogicOperationType.class);
+    private final Map<LogicOperationType, OperationCost> sliceLogicCosts = new EnumMap<>(LogicOperationType.class);
+    private final Map<ArithmeticOperationType, OperationCost> arithmeticCosts = new EnumMap<>(ArithmeticOperationType.class);
+    private final OperationCost moveCost;
+    private final OperationCost addCost;
+    private final OperationCost subtractCost;
+    private final OperationCost multiplyCost;
+    private final OperationCost compareCost;
+    private final OperationCost intervalCost;
+    private final OperationCost rangeCost;
+    private final OperationCost matchCost;
+    private final OperationCost extremumCost;
+    private final OperationCost topCost;
+    private final OperationCost programCost;
 
     public AssociativeProcessorImpl(AssociativeMemory memory) {
+        this(memory, WordLayout.DEFAULT);
+    }
+
+    public AssociativeProcessorImpl(AssociativeMemory memory, WordLayout layout) {
+        this(memory, layout, ShardedExecutor.sequential());
+    }
+
+    /**
+     * executor задаёт деление памяти на шарды для операций над срезами
+     * (логические операции, арифметика с маской, поиск по интервалам).
+     * При включённых метриках память оборачивается в CountingAssociativeMemory со счётчиками
+     * этого процессора - по ним считается стоимость операций. Если память уже обёрнута,
+     * обращения учитываются и в её счётчиках, общих у всех её процессоров (metrics().memory()).
+     */
+    public AssociativeProcessorImpl(AssociativeMemory memory, WordLayout layout, ShardedExecutor executor) {
+        if (ProcessorMetrics.ENABLED) {
+            CountingAssociativeMemory shared = memory instanceof CountingAssociativeMemory c ? c : null;
+            MemoryCounters counters = shared == null ? new MemoryCounters() : shared.counters();
+            this.metrics = new ProcessorMetrics(counters);
+            this.operationCounters = new MemoryCounters(counters);
+            memory = new CountingAssociativeMemory(shared == null ? memory : shared.delegate(), operationCounters);
+        } else {
+            this.metrics = new ProcessorMetrics(new MemoryCounters());
+            this.operationCounters = metrics.memory();
+        }
         this.memory = memory;
-        this.bufferRegister = new RegisterImpl(16, "buffer");
-        this.maskRegister = new RegisterImpl(16, "mask");
-        this.maskRegister.save(Collections.nCopies(16, true));
+        this.layout = layout;
+        this.executor = executor;
+        this.alu = new BitSerialAlu(memory, executor);
+        this.rangeSearch = new RangeSearch(memory, executor);
+        this.matchSearch = new MatchSearch(memory, executor);
+        this.extremumSearch = new ExtremumSearch(memory, executor);
+        this.wordField = new Field("word", 0, memory.wordWidth());
+        this.registers = new RegisterFile();
+        this.bufferRegister = registers.create("buffer", memory.wordWidth());
+        this.maskRegister = registers.create("mask", memory.wordWidth());
+        this.maskRegister.fill(true);
+        for (Load type : Load.values()) {
+            loadCosts.put(type, metrics.operation("LOAD." + type));
+        }
+        for (Store type : Store.values()) {
+            storeCosts.put(type, metrics.operation("STORE." + type));
+        }
+        for (LogicOperationType operation : LogicOperationType.values()) {
+            logicCosts.put(operation, metrics.operation("LOGIC." + operation));
+            sliceLogicCosts.put(operation, metrics.operation("SLICE_LOGIC." + operation));
+        }
+        for (ArithmeticOperationType operation : ArithmeticOperationType.values()) {
+            arithmeticCosts.put(operation, metrics.operation("ARITHMETIC." + operation));
+        }
+        this.moveCost = metrics.operation("MOVE");
+        this.addCost = metrics.operation("ADD");
+        this.subtractCost = metrics.operation("SUBTRACT");
+        this.multiplyCost = metrics.operation("MULTIPLY");
+        this.compareCost = metrics.operation("COMPARE");
+        this.intervalCost = metrics.operation("INTERVAL_SEARCH");
+        this.rangeCost = metrics.operation("RANGE_SEARCH");
+        this.matchCost = metrics.operation("MATCH_SEARCH");
+        this.extremumCost = metrics.operation("EXTREMUM_SEARCH");
+        this.topCost = metrics.operation("TOP");
+        this.programCost = metrics.operation("PROGRAM");
     }
 
     /**
@@ -38,11 +160,17 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
      */
     @Override
     public void loadBitSlice(int address, Load type) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        load(address, type);
+        if (ProcessorMetrics.ENABLED) end(loadCosts.get(type), start);
+    }
+
+    private void load(int address, Load type) {
         log.info("LoadBitSlice {} {}", toHex(address), type.name());
         switch (type) {
-            case TO_BUFFER_REGISTER -> bufferRegister.save(read(address));
-            case MASKED_TO_BUFFER_REGISTER -> bufferRegister.save(maskFilter(read(address), bufferRegister.load()));
-            case MASKED_TO_MASK_REGISTER -> maskRegister.save(maskFilter(read(address), maskRegister.load()));
+            case TO_BUFFER_REGISTER -> bufferRegister.setValue(read(address));
+            case MASKED_TO_BUFFER_REGISTER -> bufferRegister.setValue(maskFilter(read(address), bufferRegister.value()));
+            case MASKED_TO_MASK_REGISTER -> maskRegister.setValue(maskFilter(read(address), maskRegister.value()));
         }
     }
 
@@ -54,11 +182,17 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
      */
     @Override
     public void storeBitSlice(int address, Store type) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        store(address, type);
+        if (ProcessorMetrics.ENABLED) end(storeCosts.get(type), start);
+    }
+
+    private void store(int address, Store type) {
         log.info("StoreBitSlice {} {}", toHex(address), type.name());
         switch (type) {
-            case FROM_BUFFER_REGISTER -> write(address, bufferRegister.load());
-            case FROM_MASK_REGISTER -> write(address, maskRegister.load());
-            case MASKED_FROM_BUFFER_REGISTER -> write(address, maskFilter(bufferRegister.load(), read(address)));
+            case FROM_BUFFER_REGISTER -> write(address, bufferRegister.value());
+            case FROM_MASK_REGISTER -> write(address, maskRegister.value());
+            case MASKED_FROM_BUFFER_REGISTER -> write(address, maskFilter(bufferRegister.value(), read(address)));
         }
     }
 
@@ -68,8 +202,10 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
     @Override
     public void moveBitSlice(int fromAddress, int toAddress) {
         log.info("MoveBitSlice from: {} to: {}", toHex(fromAddress), toHex(toAddress));
-        loadBitSlice(fromAddress, Load.TO_BUFFER_REGISTER);
-        storeBitSlice(toAddress, Store.FROM_BUFFER_REGISTER);
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        load(fromAddress, Load.TO_BUFFER_REGISTER);
+        store(toAddress, Store.FROM_BUFFER_REGISTER);
+        if (ProcessorMetrics.ENABLED) end(moveCost, start);
     }
 
     /**
@@ -82,61 +218,177 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
      */
     @Override
     public void execLogicalOperation(int address, LogicOperationType operation) {
-        List<Boolean> x1 = bufferRegister.load();
-        List<Boolean> x2 = read(address);
-        switch (operation) {
-            case FUNC_2 -> bufferRegister.save(conjunction(x1, not(x2)));
-            case FUNC_7 -> bufferRegister.save(disjunction(x1, x2));
-            case FUNC_8 -> bufferRegister.save(not(disjunction(x1, x2)));
-            case FUNC_13 -> bufferRegister.save(disjunction(not(x1), x2));
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        bufferRegister.setValue(operation.apply(bufferRegister.value(), read(address)));
+        if (ProcessorMetrics.ENABLED) end(logicCosts.get(operation), start);
+    }
+
+    /**
+     * Трёхадресная форма: разрядный срез destination = f(source1, source2), аргументы - номера
+     * срезов в [0, wordWidth), иначе IllegalArgumentException. Срезы обрабатываются целиком по 64 слова за операцию, без участия буферного регистра,
+     * а в сжатой памяти - по контейнерам, без разворачивания срезов.
+     */
+    @Override
+    public void execSliceLogicalOperation(int destination, int source1, int source2, LogicOperationType operation) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        sliceLogic(destination, source1, source2, operation);
+        if (ProcessorMetrics.ENABLED) end(sliceLogicCosts.get(operation), start);
+    }
+
+    private void sliceLogic(int destination, int source1, int source2, LogicOperationType operation) {
+        checkSlice(destination);
+        checkSlice(source1);
+        checkSlice(source2);
+        CompressedAssociativeMemory compressed = CompressedAssociativeMemory.unwrap(memory);
+        if (compressed != null) {
+            compressed.logic(operation, destination, source1, source2);
+            CompressedAssociativeMemory.countColumns(memory, 2, 1);
+            if (Trace.ENABLED) {
+                int length = BitSlices.length(memory.wordCount());
+                traceSlice(TraceEvent.SLICE_READ, source1, 0, length);
+                traceSlice(TraceEvent.SLICE_READ, source2, 0, length);
+                traceSlice(TraceEvent.SLICE_WRITE, destination, 0, length);
+            }
+            return;
         }
+        int length = BitSlices.length(memory.wordCount());
+        if (sliceBuffer1.length != length) {
+            sliceBuffer1 = new long[length];
+            sliceBuffer2 = new long[length];
+        }
+        long[] x1 = sliceBuffer1;
+        long[] x2 = sliceBuffer2;
+        executor.run(length, (from, to) -> {
+            memory.getSlice(source1, x1, from, to);
+            memory.getSlice(source2, x2, from, to);
+            kernels.logic(operation, x1, x2, x1, from, to);
+            memory.setSlice(destination, x1, from, to);
+            if (Trace.ENABLED) {
+                traceSlice(TraceEvent.SLICE_READ, source1, from, to);
+                traceSlice(TraceEvent.SLICE_READ, source2, from, to);
+                traceSlice(TraceEvent.SLICE_WRITE, destination, from, to);
+            }
+            return 0;
+        });
     }
 
     /**
      * Сложение полей Aj и Bj в словах Sj, у которых Vj совпадает с заданным V=000-111 (по условию).
      *
      * Метод суммирует Aj и Bj для всех значений в памяти,
-     * первых 3 бит которых совпадают с 3 первыми битами регистра маски.
+     * поле V которых совпадает с разрядами поля V регистра маски.
      */
     @Override
     public void maskedSum() {
-        log.info("MaskedSum {}", maskRegister);
-        List<Boolean> mask = maskRegister.load();
-        for (int i = 0; i < memory.size(); i++) {
-            List<Boolean> current = read(i);
-            if (isVjEquals(current, mask)) {
-                sum(current);
-                storeBitSlice(i, Store.FROM_BUFFER_REGISTER);
+        execArithmeticOperation(ArithmeticOperationType.SUM_AJ_BJ_MASKED);
+    }
+
+    /**
+     * Выполняет арифметическую операцию над полями A и B (раскладка layout)
+     * одновременно во всех словах, поле V которых совпадает с полем V регистра маски.
+     * Результат записывается в поле S.
+     */
+    @Override
+    public void execArithmeticOperation(ArithmeticOperationType operation) {
+        log.info("ExecArithmeticOperation {} {}", operation.name(), maskRegister);
+        layout.checkFits(memory.wordWidth());
+        long key = layout.key().valueOf(maskRegister.value(), memory.wordWidth());
+        Register tagRegister = registers.require("tags", memory.wordCount());
+        tagRegister.fill(true);
+        long[] tags = tagRegister.words();
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        int matched = alu.match(layout.key(), key, tags);
+        if (matched > 0) {
+            switch (operation) {
+                case SUM_AJ_BJ_MASKED -> alu.add(layout.first(), layout.second(), layout.result(), tags);
+                case SUB_AJ_BJ_MASKED -> alu.subtract(layout.first(), layout.second(), layout.result(), tags);
+                case MUL_AJ_BJ_MASKED -> alu.multiply(layout.first(), layout.second(), layout.result(), tags, null);
             }
         }
+        if (ProcessorMetrics.ENABLED) end(arithmeticCosts.get(operation), start, matched);
     }
 
-    private void sum(List<Boolean> bits) {
-        List<Boolean> result = new ArrayList<>(bits);
-        List<Boolean> aj = new ArrayList<>();
-        List<Boolean> bj = new ArrayList<>();
+    /**
+     * result = x + y во всех словах, помеченных в tags, за один поразрядный проход.
+     * Возвращает слова, сумма которых не поместилась в result.
+     */
+    @Override
+    public TagVector add(Field x, Field y, Field result, TagVector tags) {
+        long[] overflow = new long[checkTags(tags)];
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        alu.add(checkField(x), checkField(y), checkField(result), tags.words(), overflow);
+        if (ProcessorMetrics.ENABLED) end(addCost, start);
+        return new TagVector(overflow, memory.wordCount());
+    }
 
-        for (int i = 3; i < 7; i++) {
-            aj.add(bits.get(i));
-            bj.add(bits.get(i + 4));
-        }
+    /**
+     * result = x - y в помеченных словах. Возвращает слова с заёмом (x < y)
+     * или разностью, не поместившейся в result.
+     */
+    @Override
+    public TagVector subtract(Field x, Field y, Field result, TagVector tags) {
+        long[] borrow = new long[checkTags(tags)];
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        alu.subtract(checkField(x), checkField(y), checkField(result), tags.words(), borrow);
+        if (ProcessorMetrics.ENABLED) end(subtractCost, start);
+        return new TagVector(borrow, memory.wordCount());
+    }
 
-        List<Boolean> sj = add(aj, bj);
+    /**
+     * result = x * y в помеченных словах. Возвращает слова, произведение которых не поместилось в result.
+     */
+    @Override
+    public TagVector multiply(Field x, Field y, Field result, TagVector tags) {
+        long[] overflow = new long[checkTags(tags)];
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        alu.multiply(checkField(x), checkField(y), checkField(result), tags.words(), overflow);
+        if (ProcessorMetrics.ENABLED) end(multiplyCost, start);
+        return new TagVector(overflow, memory.wordCount());
+    }
 
-        int index = 0;
-        for (int i = 11; i < 16; i++) {
-            result.set(i, sj.get(index));
-            index++;
-        }
+    @Override
+    public TagVector multiply(Field x, long factor, Field result, TagVector tags) {
+        long[] overflow = new long[checkTags(tags)];
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        alu.multiply(checkField(x), factor, checkField(result), tags.words(), overflow);
+        if (ProcessorMetrics.ENABLED) end(multiplyCost, start);
+        return new TagVector(overflow, memory.wordCount());
+    }
 
-        log.info("Sum {} + {} = {}", toDig(aj), toDig(bj), toDig(sj));
+    /**
+     * Сравнение полей без знака во всех помеченных словах за один проход от старших разрядов.
+     */
+    @Override
+    public Comparison compare(Field x, Field y, TagVector tags) {
+        int length = checkTags(tags);
+        long[] greater = new long[length];
+        long[] less = new long[length];
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        alu.compare(checkField(x), checkField(y), tags.words(), greater, less);
+        if (ProcessorMetrics.ENABLED) end(compareCost, start);
+        long[] equal = tags.words().clone();
+        for (int i = 0; i < length; i++) {
+            equal[i] &= ~(greater[i] | less[i]);
+        }
+        int size = memory.wordCount();
+        return new Comparison(new TagVector(less, size), new TagVector(equal, size), new TagVector(greater, size));
+    }
 
-        bufferRegister.save(result);
+    private Field checkField(Field field) {
+        if (field.end() > memory.wordWidth())
+            throw new IllegalArgumentException(field + " does not fit into " + memory.wordWidth() + "-bit word");
+        return field;
     }
 
+    private void checkSlice(int slice) {
+        if (slice < 0 || slice >= memory.wordWidth())
+            throw new IllegalArgumentException("slice " + slice + " out of [0, " + memory.wordWidth() + ")");
+    }
 
-    private boolean isVjEquals(List<Boolean> operand, List<Boolean> mask) {
-        return Objects.equals(operand.get(0), mask.get(0)) && Objects.equals(operand.get(1), mask.get(1)) && Objects.equals(operand.get(2), mask.get(2));
+    private int checkTags(TagVector tags) {
+        if (tags.size() != memory.wordCount())
+            throw new IllegalArgumentException("tags for " + tags.size() + " words, memory has " + memory.wordCount());
+        return tags.words().length;
     }
 
     /**
@@ -158,25 +410,186 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
      * [0x1] 1
      * [0x2] 0
      * [0x3] 0
+     * <p>
+     * В буферный регистр помещаются теги первых wordWidth слов,
+     * полный результат для всей памяти возвращает searchInRanges.
      */
     @Override
     public void getSlicesInInterval(int addressOfLower, int addressOfUpper) {
-        List<Boolean> lowerLimit = read(addressOfLower);
-        List<Boolean> upperLimit = read(addressOfUpper);
-        if (compare(lowerLimit, upperLimit) == -1) {
-            List<Boolean> temp = lowerLimit;
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        long lowerLimit = read(addressOfLower);
+        long upperLimit = read(addressOfUpper);
+        if (Long.compareUnsigned(lowerLimit, upperLimit) > 0) {
+            long temp = lowerLimit;
             lowerLimit = upperLimit;
             upperLimit = temp;
         }
-        log.info("GetSlicesInInterval {} < x < {}", toDig(lowerLimit), toDig(upperLimit));
-        List<Boolean> buffer = new ArrayList<>();
+        log.info("GetSlicesInInterval {} < x < {}", toDig(toBits(lowerLimit, memory.wordWidth())), toDig(toBits(upperLimit, memory.wordWidth())));
+        long[] tags = new long[BitSlices.length(memory.wordCount())];
+        int matched = rangeSearch.search(wordField, List.of(Range.open(lowerLimit, upperLimit)), tags);
+
+        bufferRegister.copyFrom(tags);
+        if (ProcessorMetrics.ENABLED) end(intervalCost, start, matched);
+    }
+
+    /**
+     * Помечает все слова, поле field которых попадает хотя бы в один из интервалов.
+     * Сравнение выполняется одновременно для всех слов проходом по разрядным срезам поля.
+     */
+    @Override
+    public TagVector searchInRanges(Field field, Range... ranges) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        long[] tags = new long[BitSlices.length(memory.wordCount())];
+        int matched = rangeSearch.search(field, List.of(ranges), tags);
+        if (ProcessorMetrics.ENABLED) end(rangeCost, start, matched);
+        return new TagVector(tags, memory.wordCount());
+    }
+
+    /**
+     * Сравнивает все слова памяти с образцом из буферного регистра в разрядах,
+     * выбранных регистром маски. Результат также сохраняется в регистр tags.
+     * Для разрешения множественного отклика см. TagVector.first/pollFirst/iterator.
+     */
+    @Override
+    public TagVector searchMasked() {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        long[] tags = new long[BitSlices.length(memory.wordCount())];
+        int matched = matchSearch.search(bufferRegister.value(), maskRegister.value(), tags);
+        if (ProcessorMetrics.ENABLED) end(matchCost, start, matched);
+        registers.require("tags", memory.wordCount()).copyFrom(tags);
+        return new TagVector(tags, memory.wordCount());
+    }
+
+    /**
+     * Слова с максимальным значением поля field (поразрядное сужение кандидатов).
+     */
+    @Override
+    public TagVector searchMax(Field field) {
+        return searchExtremum(field, true);
+    }
 
-        for (int i = 0; i < memory.size(); i++) {
-            List<Boolean> current = read(i);
-            log.info("compare {} < {} < {} is {}", toDig(lowerLimit), toDig(current), toDig(upperLimit), compare(current, lowerLimit) == -1 && compare(current, upperLimit) == 1);
-            buffer.add(i, compare(current, lowerLimit) == -1 && compare(current, upperLimit) == 1);
+    @Override
+    public TagVector searchMin(Field field) {
+        return searchExtremum(field, false);
+    }
+
+    private TagVector searchExtremum(Field field, boolean largest) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        long[] tags = BitSlices.ones(memory.wordCount());
+        int matched = extremumSearch.refine(field, largest, tags);
+        if (ProcessorMetrics.ENABLED) end(extremumCost, start, matched);
+        return new TagVector(tags, memory.wordCount());
+    }
+
+    /**
+     * Ленивый поток адресов, упорядоченных по значению поля field.
+     */
+    @Override
+    public IntStream sortedAddresses(Field field, boolean descending) {
+        return extremumSearch.sorted(field, descending);
+    }
+
+    @Override
+    public int[] top(Field field, int k, boolean largest) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        int[] top = extremumSearch.top(field, k, largest);
+        if (ProcessorMetrics.ENABLED) end(topCost, start);
+        return top;
+    }
+
+    /**
+     * Выполняет программу целиком. Последовательности load -> op -> store сливаются
+     * (см. ProgramCompiler), регистры читаются один раз в начале и сохраняются один раз
+     * в конце, а промежуточные значения хранятся как упакованные слова.
+     */
+    @Override
+    public ProgramResult execute(Program program) {
+        long start = ProcessorMetrics.ENABLED ? begin() : 0;
+        ProgramResult result = run(program);
+        if (ProcessorMetrics.ENABLED) end(programCost, start);
+        return result;
+    }
+
+    private ProgramResult run(Program program) {
+        long start = System.nanoTime();
+        List<Instruction> plan = ProgramCompiler.compile(program.instructions());
+        long buffer = bufferRegister.value();
+        long mask = maskRegister.value();
+        for (Instruction instruction : plan) {
+            if (instruction instanceof FusedLogicInstruction fused) {
+                buffer = fused.operation().apply(read(fused.source1()), read(fused.source2()));
+                write(fused.destination(), buffer);
+            } else if (instruction instanceof LoadInstruction load) {
+                long word = read(load.address());
+                switch (load.type()) {
+                    case TO_BUFFER_REGISTER -> buffer = word;
+                    case MASKED_TO_BUFFER_REGISTER -> buffer = (word & mask) | (buffer & ~mask);
+                    case MASKED_TO_MASK_REGISTER -> mask = word & mask;
+                }
+            } else if (instruction instanceof StoreInstruction store) {
+                switch (store.type()) {
+                    case FROM_BUFFER_REGISTER -> write(store.address(), buffer);
+                    case FROM_MASK_REGISTER -> write(store.address(), mask);
+                    case MASKED_FROM_BUFFER_REGISTER -> write(store.address(),
+                            (buffer & mask) | (read(store.address()) & ~mask));
+                }
+            } else if (instruction instanceof LogicInstruction logic) {
+                buffer = logic.operation().apply(buffer, read(logic.address()));
+            } else if (instruction instanceof MoveInstruction move) {
+                buffer = read(move.fromAddress());
+                write(move.toAddress(), buffer);
+            } else if (instruction instanceof SliceLogicInstruction slice) {
+                sliceLogic(slice.destination(), slice.source1(), slice.source2(), slice.operation());
+            }
         }
-        bufferRegister.save(buffer);
+        bufferRegister.setValue(buffer);
+        maskRegister.setValue(mask);
+        ProgramResult result = new ProgramResult(program.size(), plan.size(), System.nanoTime() - start);
+        log.info("Execute {} instructions ({} after fusion) in {} us, {} instr/s", result.instructions(),
+                result.executed(), result.nanos() / 1000, String.format("%.0f", result.instructionsPerSecond()));
+        return result;
+    }
+
+    /**
+     * Стоимость операций этого процессора и счётчики его памяти.
+     */
+    @Override
+    public ProcessorMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Начало замера операции: обнуляет счётчики обращений этого процессора и возвращает время начала.
+     * Операции не вкладываются друг в друга (move и программа выполняют загрузку, выгрузку и логику
+     * над срезами без отдельного замера), поэтому к концу операции в счётчиках только её обращения.
+     */
+    private long begin() {
+        operationCounters.reset();
+        return System.nanoTime();
+    }
+
+    private void end(OperationCost cost, long start) {
+        long nanos = System.nanoTime() - start;
+        MemoryCounters counters = operationCounters;
+        cost.record(nanos, counters.getColumnReads(), counters.getColumnWrites(),
+                counters.getBitsRead() + counters.getBitsWritten());
+    }
+
+    /**
+     * Конец замера поиска: matched - количество отозвавшихся слов, уже посчитанное поиском.
+     */
+    private void end(OperationCost cost, long start, int matched) {
+        end(cost, start);
+        cost.matched(matched);
+    }
+
+    /**
+     * Регистры процессора: buffer и mask шириной в слово, tags шириной в количество слов.
+     * Приложение может создавать дополнительные регистры для своих векторов.
+     */
+    @Override
+    public RegisterFile registers() {
+        return registers;
     }
 
     /**
@@ -184,16 +597,36 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
      */
     @Override
     public String memoryAsNormal() {
-        StringBuilder output = new StringBuilder();
-        output.append("NormalMemory{\n");
-        for (int i = 0; i < memory.size(); i++) {
-            List<Boolean> bin = read(i);
-            output.append(toHex(i)).append(toDig(bin)).append(" [").append(toDecimal(bin)).append("]").append('\n');
+        StringWriter output = new StringWriter();
+        output.write("NormalMemory{\n");
+        try {
+            memoryAsNormal(output, 0, memory.wordCount());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        output.append("}\n");
+        output.write("}\n");
         return output.toString();
     }
 
+    /**
+     * Нормальное отображение слов from..to-1 в out без построения общей строки.
+     * При включённой трассировке слова читаются по одному (методом read), чтобы попасть в трассировку,
+     * иначе - блоками по разрядным срезам.
+     */
+    @Override
+    public void memoryAsNormal(Writer out, int from, int to) throws IOException {
+        if (!Trace.ENABLED) {
+            if (renderer == null) renderer = new MemoryRenderer(memory);
+            renderer.render(out, from, to);
+            return;
+        }
+        StringBuilder line = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            line.setLength(0);
+            out.append(MemoryRenderer.appendLine(line, i, read(i), memory.wordWidth()));
+        }
+    }
+
     /**
      * Записывает значения через маску (Регистр маски) с учётом предыдущего состояния.
      * mask:           001100
@@ -201,103 +634,32 @@ public class AssociativeProcessorImpl implements AssociativeProcessor {
      * previousState:  100101
      * result ->       101101
      */
-    private List<Boolean> maskFilter(List<Boolean> bitsToBeMasked, List<Boolean> previousState) {
-        List<Boolean> mask = this.maskRegister.load();
-        List<Boolean> maskedBits = new ArrayList<>(previousState);
-        for (int i = 0; i < bitsToBeMasked.size(); i++) {
-            if (Boolean.TRUE.equals(mask.get(i))) maskedBits.set(i, bitsToBeMasked.get(i));
-        }
-        return maskedBits;
+    private long maskFilter(long bitsToBeMasked, long previousState) {
+        long mask = maskRegister.value();
+        return (bitsToBeMasked & mask) | (previousState & ~mask);
     }
 
     /**
      * Сделать срез по адресу (Прочитать).
      */
-    private List<Boolean> read(int address) {
-
-        List<Boolean> slice = new ArrayList<>();
-        for (int i = address; i < memory.size(); i++) {
-            slice.add(memory.get(i, address));
-        }
-        for (int i = 0; i < address; i++) {
-            slice.add(memory.get(i, address));
-        }
-        log.info("READ {} {}", toHex(address), toDig(slice));
-        return slice;
+    private long read(int address) {
+        long word = memory.getWord(address);
+        if (Trace.ENABLED) Trace.record(TraceEvent.READ, memory.wordWidth(), address, word, word);
+        return word;
     }
 
     /**
-     * Записать срез по адресу.
+     * Отметить в трассировке обращение к элементам from..to-1 среза slice (слова from*64..to*64-1).
      */
-    private void write(int address, List<Boolean> bits) {
-        for (int i = address; i < memory.size(); i++) {
-            memory.set(i, address, bits.get(i - address));
-        }
-        for (int i = 0; i < address; i++) {
-            memory.set(i, address, bits.get(memory.size() + i - address));
-        }
-        log.info("WRITE {} {}", toHex(address), toDig(bits));
-    }
-
-    public static List<Boolean> disjunction(List<Boolean> binary1, List<Boolean> binary2) {
-        List<Boolean> disjunction = new ArrayList<>();
-        for (int i = 0; i < binary1.size(); i++) {
-            disjunction.add(binary1.get(i) || binary2.get(i));
-        }
-        return disjunction;
-    }
-
-    public static List<Boolean> conjunction(List<Boolean> binary1, List<Boolean> binary2) {
-        List<Boolean> conjunction = new ArrayList<>();
-        for (int i = 0; i < binary1.size(); i++) {
-            conjunction.add(binary1.get(i) && binary2.get(i));
-        }
-        return conjunction;
+    private void traceSlice(TraceEvent event, int slice, int from, int to) {
+        Trace.record(event, memory.wordWidth(), slice, (long) from << 6, Math.min((long) to << 6, memory.wordCount()));
     }
 
-    public static List<Boolean> not(List<Boolean> binary) {
-        List<Boolean> not = new ArrayList<>();
-        for (Boolean bit : binary) {
-            not.add(!bit);
-        }
-        return not;
-    }
-
-    private static List<Boolean> add(List<Boolean> summand1, List<Boolean> summand2) {
-        List<Boolean> result = new ArrayList<>();
-        boolean trans = false;
-
-        for (int i = summand1.size() - 1; i >= 0; i--) {
-            if (!summand1.get(i) && !summand2.get(i) && !trans) {
-                result.add(false);
-                trans = false;
-            } else if (!summand1.get(i) && !summand2.get(i) && trans) {
-                result.add(true);
-                trans = false;
-            } else if (summand1.get(i) && !summand2.get(i) && !trans) {
-                result.add(true);
-                trans = false;
-            } else if (summand1.get(i) && !summand2.get(i) && trans) {
-                result.add(false);
-                trans = true;
-            } else if (!summand1.get(i) && summand2.get(i) && !trans) {
-                result.add(true);
-                trans = false;
-            } else if (!summand1.get(i) && summand2.get(i) && trans) {
-                result.add(false);
-                trans = true;
-            } else if (summand1.get(i) && summand2.get(i) && !trans) {
-                result.add(false);
-                trans = true;
-            } else if (summand1.get(i) && summand2.get(i) && trans) {
-                result.add(true);
-                trans = true;
-            }
-        }
-        if (trans) result.add(true);
-        else result.add(false);
-
-        Collections.reverse(result);
-        return result;
+    /**
+     * Записать срез по адресу.
+     */
+    private void write(int address, long word) {
+        if (Trace.ENABLED) Trace.record(TraceEvent.WRITE, memory.wordWidth(), address, memory.getWord(address), word);
+        memory.setWord(address, word);
     }
 }
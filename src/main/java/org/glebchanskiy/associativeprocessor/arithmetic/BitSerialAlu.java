@@ -0,0 +1,248 @@
+package org.glebchanskiy.associativeprocessor.arithmetic;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.kernel.BitKernels;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.Arrays;
+
+/**
+ * Поразрядно-последовательная арифметика над полями всех слов сразу.
+ * Операция проходит по разрядам поля от младшего к старшему, а внутри разряда
+ * обрабатывает срез целиком (64 слова за операцию над long), поэтому стоимость
+ * пропорциональна ширине поля, а не количеству слов.
+ * Слова, в которых записывается результат, задаются вектором тегов.
+ * Поля могут быть любой ширины (до 64 разрядов) и различаться по ширине: недостающие
+ * старшие разряды считаются нулями. Переполнение - результат не помещается в поле
+ * (для вычитания также отрицательная разность) - отмечается в векторе overflow.
+ * Шарды исполнителя работают с непересекающимися диапазонами общих буферов.
+ */
+public class BitSerialAlu {
+    private final AssociativeMemory memory;
+    private final ShardedExecutor executor;
+    private final BitKernels kernels = BitKernels.get();
+    private long[] first = new long[0];
+    private long[] second = new long[0];
+    private long[] carry = new long[0];
+    private long[] result = new long[0];
+    private long[] selected = new long[0];
+
+    public BitSerialAlu(AssociativeMemory memory) {
+        this(memory, ShardedExecutor.sequential());
+    }
+
+    public BitSerialAlu(AssociativeMemory memory, ShardedExecutor executor) {
+        this.memory = memory;
+        this.executor = executor;
+    }
+
+    /**
+     * Оставляет в tags только слова, у которых поле field равно key.
+     * Возвращает количество оставшихся помеченных слов.
+     */
+    public int match(Field field, long key, long[] tags) {
+        int length = prepare();
+        return (int) executor.run(length, (from, to) -> {
+            for (int bit = 0; bit < field.width(); bit++) {
+                memory.getSlice(field.slice(bit), first, from, to);
+                kernels.match(tags, first, ((key >>> bit) & 1) == 1 ? 0L : -1L, from, to);
+            }
+            return count(tags, from, to);
+        });
+    }
+
+    /**
+     * s = x + y в помеченных словах. Перенос из старшего разряда s теряется.
+     */
+    public void add(Field x, Field y, Field s, long[] tags) {
+        add(x, y, s, tags, null);
+    }
+
+    /**
+     * s = x + y в помеченных словах; слова, сумма которых не помещается в s, помечаются
+     * в overflow (если он не null). Возвращает количество переполнений.
+     */
+    public int add(Field x, Field y, Field s, long[] tags, long[] overflow) {
+        checkInPlace(s, x, y);
+        int length = prepare();
+        return (int) executor.run(length, (from, to) -> serial(x, y, s, tags, overflow, false, from, to));
+    }
+
+    /**
+     * s = x - y (по модулю 2^ширина s) в помеченных словах.
+     */
+    public void subtract(Field x, Field y, Field s, long[] tags) {
+        subtract(x, y, s, tags, null);
+    }
+
+    /**
+     * s = x - y в помеченных словах; слова с отрицательной разностью (заём из старшего разряда)
+     * или разностью, не помещающейся в s, помечаются в overflow. Возвращает количество таких слов.
+     */
+    public int subtract(Field x, Field y, Field s, long[] tags, long[] overflow) {
+        checkInPlace(s, x, y);
+        int length = prepare();
+        return (int) executor.run(length, (from, to) -> serial(x, y, s, tags, overflow, true, from, to));
+    }
+
+    /**
+     * s = x * y в помеченных словах: сдвиг и сложение, по одному частичному произведению
+     * на разряд y, сложение выполняется только в словах, где этот разряд равен 1.
+     * s не должно пересекаться с x и y. Возвращает количество переполнений.
+     */
+    public int multiply(Field x, Field y, Field s, long[] tags, long[] overflow) {
+        checkDisjoint(s, x);
+        checkDisjoint(s, y);
+        int length = prepare();
+        return (int) executor.run(length, (from, to) -> multiplySerial(x, y, 0, s, tags, overflow, from, to));
+    }
+
+    /**
+     * s = x * factor в помеченных словах (factor без знака): частичное произведение
+     * прибавляется только для единичных разрядов factor. s не должно пересекаться с x.
+     */
+    public int multiply(Field x, long factor, Field s, long[] tags, long[] overflow) {
+        checkDisjoint(s, x);
+        int length = prepare();
+        return (int) executor.run(length, (from, to) -> multiplySerial(x, null, factor, s, tags, overflow, from, to));
+    }
+
+    /**
+     * Сравнивает поля x и y без знака в помеченных словах: greater - x > y, less - x < y
+     * (равные слова - помеченные, не попавшие ни в один из векторов).
+     */
+    public void compare(Field x, Field y, long[] tags, long[] greater, long[] less) {
+        int length = prepare();
+        executor.run(length, (from, to) -> {
+            Arrays.fill(greater, from, to, 0L);
+            Arrays.fill(less, from, to, 0L);
+            for (int bit = Math.max(x.width(), y.width()) - 1; bit >= 0; bit--) {
+                load(x, bit, first, from, to);
+                load(y, bit, second, from, to);
+                kernels.compareBit(greater, less, first, second, from, to);
+            }
+            for (int i = from; i < to; i++) {
+                greater[i] &= tags[i];
+                less[i] &= tags[i];
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * Разряды сверх ширины s вычисляются, но не записываются: они и перенос из
+     * последнего разряда дают переполнение.
+     */
+    private long serial(Field x, Field y, Field s, long[] tags, long[] overflow, boolean subtract, int from, int to) {
+        Arrays.fill(carry, from, to, 0L);
+        if (overflow != null) Arrays.fill(overflow, from, to, 0L);
+        int width = overflow == null ? s.width() : Math.max(s.width(), Math.max(x.width(), y.width()));
+        for (int bit = 0; bit < width; bit++) {
+            load(x, bit, first, from, to);
+            load(y, bit, second, from, to);
+            if (bit < s.width()) {
+                memory.getSlice(s.slice(bit), result, from, to);
+                kernels.addBit(first, second, carry, result, tags, subtract, from, to);
+                memory.setSlice(s.slice(bit), result, from, to);
+            } else {
+                Arrays.fill(result, from, to, 0L);
+                kernels.addBit(first, second, carry, result, tags, subtract, from, to);
+                or(overflow, result, tags, from, to);
+            }
+        }
+        if (overflow == null) return 0;
+        or(overflow, carry, tags, from, to);
+        return count(overflow, from, to);
+    }
+
+    /**
+     * Частичные произведения монотонно увеличивают сумму, поэтому переполнение - это перенос
+     * из старшего разряда s хотя бы в одном сложении или единичный разряд x, сдвинутый за пределы s.
+     */
+    private long multiplySerial(Field x, Field y, long factor, Field s, long[] tags, long[] overflow, int from, int to) {
+        for (int bit = 0; bit < s.width(); bit++) {
+            memory.getSlice(s.slice(bit), result, from, to);
+            for (int i = from; i < to; i++) {
+                result[i] &= ~tags[i];
+            }
+            memory.setSlice(s.slice(bit), result, from, to);
+        }
+        if (overflow != null) Arrays.fill(overflow, from, to, 0L);
+        int multiplierWidth = y != null ? y.width() : Long.SIZE - Long.numberOfLeadingZeros(factor);
+        for (int shift = 0; shift < multiplierWidth; shift++) {
+            if (y != null) {
+                memory.getSlice(y.slice(shift), selected, from, to);
+                for (int i = from; i < to; i++) {
+                    selected[i] &= tags[i];
+                }
+            } else if (((factor >>> shift) & 1) == 1) {
+                System.arraycopy(tags, from, selected, from, to - from);
+            } else {
+                continue;
+            }
+            Arrays.fill(carry, from, to, 0L);
+            for (int bit = shift; bit < s.width(); bit++) {
+                load(x, bit - shift, first, from, to);
+                memory.getSlice(s.slice(bit), result, from, to);
+                kernels.addBit(first, result, carry, result, selected, false, from, to);
+                memory.setSlice(s.slice(bit), result, from, to);
+            }
+            if (overflow == null) continue;
+            or(overflow, carry, selected, from, to);
+            for (int bit = Math.max(0, s.width() - shift); bit < x.width(); bit++) {
+                memory.getSlice(x.slice(bit), first, from, to);
+                or(overflow, first, selected, from, to);
+            }
+        }
+        return overflow == null ? 0 : count(overflow, from, to);
+    }
+
+    private void load(Field field, int bit, long[] target, int from, int to) {
+        if (bit < field.width()) memory.getSlice(field.slice(bit), target, from, to);
+        else Arrays.fill(target, from, to, 0L);
+    }
+
+    private static void or(long[] target, long[] bits, long[] tags, int from, int to) {
+        for (int i = from; i < to; i++) {
+            target[i] |= bits[i] & tags[i];
+        }
+    }
+
+    private static long count(long[] tags, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            count += Long.bitCount(tags[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Разряд k результата записывается после чтения разрядов k операндов, поэтому результат
+     * может занимать те же срезы, что и операнд (младшие разряды совпадают), но не со сдвигом.
+     */
+    private static void checkInPlace(Field s, Field x, Field y) {
+        for (Field operand : new Field[]{x, y}) {
+            if (s.overlaps(operand) && s.end() != operand.end())
+                throw new IllegalArgumentException(s + " overlaps " + operand + " with a shift");
+        }
+    }
+
+    private static void checkDisjoint(Field s, Field operand) {
+        if (s.overlaps(operand))
+            throw new IllegalArgumentException(s + " overlaps " + operand);
+    }
+
+    private int prepare() {
+        int length = BitSlices.length(memory.wordCount());
+        if (first.length != length) {
+            first = new long[length];
+            second = new long[length];
+            carry = new long[length];
+            result = new long[length];
+            selected = new long[length];
+        }
+        return length;
+    }
+}
@@ -0,0 +1,9 @@
+package org.glebchanskiy.associativeprocessor.arithmetic;
+
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+
+/**
+ * Результат сравнения двух полей во всех помеченных словах.
+ */
+public record Comparison(TagVector less, TagVector equal, TagVector greater) {
+}
@@ -1,9 +1,85 @@
 package org.glebchanskiy.associativeprocessor.associativememory;
 
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.Arrays;
+
+/**
+ * Ассоциативная память с диагональной адресацией.
+ * Слово с адресом j хранится в столбце j, k-й разряд слова лежит в строке (j + k) mod wordWidth.
+ * Разрядный срез k (k-е разряды всех слов) упакован в long[] по 64 слова в элементе.
+ * Разряд 0 слова - старший.
+ */
 public interface AssociativeMemory {
     Boolean get(int i, int j);
 
     void set(int i, int j, Boolean bit);
 
     int size();
+
+    default int wordCount() {
+        return size();
+    }
+
+    default int wordWidth() {
+        return size();
+    }
+
+    /**
+     * Слово по адресу в виде числа (разряд 0 - старший бит).
+     */
+    default long getWord(int address) {
+        int width = wordWidth();
+        long word = 0;
+        for (int k = 0; k < width; k++) {
+            word <<= 1;
+            if (Boolean.TRUE.equals(get((address + k) % width, address))) word |= 1;
+        }
+        return word;
+    }
+
+    default void setWord(int address, long word) {
+        int width = wordWidth();
+        for (int k = 0; k < width; k++) {
+            set((address + k) % width, address, ((word >>> (width - 1 - k)) & 1) == 1);
+        }
+    }
+
+    /**
+     * Разрядный срез bit по всем словам: бит слова j лежит в slice[j >>> 6] на позиции j & 63.
+     */
+    default long[] getSlice(int bit) {
+        long[] slice = new long[BitSlices.length(wordCount())];
+        getSlice(bit, slice);
+        return slice;
+    }
+
+    default void getSlice(int bit, long[] target) {
+        getSlice(bit, target, 0, BitSlices.length(wordCount()));
+    }
+
+    default void setSlice(int bit, long[] slice) {
+        setSlice(bit, slice, 0, BitSlices.length(wordCount()));
+    }
+
+    /**
+     * Копирует элементы from..to-1 среза bit в те же позиции target (слова from*64..to*64-1).
+     * Разные диапазоны можно читать и писать из разных потоков одновременно.
+     */
+    default void getSlice(int bit, long[] target, int from, int to) {
+        int width = wordWidth();
+        Arrays.fill(target, from, to, 0L);
+        int end = (int) Math.min((long) to << 6, wordCount());
+        for (int j = from << 6; j < end; j++) {
+            if (Boolean.TRUE.equals(get((j + bit) % width, j))) target[j >>> 6] |= 1L << j;
+        }
+    }
+
+    default void setSlice(int bit, long[] slice, int from, int to) {
+        int width = wordWidth();
+        int end = (int) Math.min((long) to << 6, wordCount());
+        for (int j = from << 6; j < end; j++) {
+            set((j + bit) % width, j, (slice[j >>> 6] & (1L << j)) != 0);
+        }
+    }
 }
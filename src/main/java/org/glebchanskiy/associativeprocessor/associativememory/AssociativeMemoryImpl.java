@@ -1,12 +1,12 @@
 package org.glebchanskiy.associativeprocessor.associativememory;
 
+import org.glebchanskiy.associativeprocessor.trace.Trace;
+import org.glebchanskiy.associativeprocessor.trace.TraceEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
 
-import static org.glebchanskiy.associativeprocessor.util.APUtils.toDig;
-
 public class AssociativeMemoryImpl implements AssociativeMemory {
 
     private static final Logger log = LoggerFactory.getLogger(AssociativeMemoryImpl.class);
@@ -14,10 +14,16 @@ public class AssociativeMemoryImpl implements AssociativeMemory {
     private final Boolean[][] associativeArray;
 
     public AssociativeMemoryImpl() {
+        this(new Random());
+    }
+
+    /**
+     * Память, заполненная из random: при одном зерне содержимое воспроизводится.
+     */
+    public AssociativeMemoryImpl(Random random) {
         log.info("initialize Memory {}x{}", DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE);
         this.associativeArray = new Boolean[DEFAULT_POOL_SIZE][DEFAULT_POOL_SIZE];
         for (int i = 0; i < DEFAULT_POOL_SIZE; i++) {
-            Random random = new Random();
             Boolean[] inner = new Boolean[DEFAULT_POOL_SIZE];
             for (int j = 0; j < DEFAULT_POOL_SIZE; j++) {
                 inner[j] = random.nextBoolean();
@@ -33,13 +39,14 @@ public class AssociativeMemoryImpl implements AssociativeMemory {
 
     @Override
     public Boolean get(int i, int j) {
-        log.debug("Get {}:{} -> {}", i, j, toDig(this.associativeArray[i][j]));
-        return this.associativeArray[i][j];
+        Boolean bit = this.associativeArray[i][j];
+        if (Trace.ENABLED) Trace.record(TraceEvent.GET, 1, j, i, Boolean.TRUE.equals(bit) ? 1 : 0);
+        return bit;
     }
 
     @Override
     public void set(int i, int j, Boolean bit) {
-        log.debug("Set {}:{} <- {}", i, j, toDig(bit));
+        if (Trace.ENABLED) Trace.record(TraceEvent.SET, 1, j, i, Boolean.TRUE.equals(bit) ? 1 : 0);
         this.associativeArray[i][j] = bit;
     }
 
@@ -49,14 +56,22 @@ public class AssociativeMemoryImpl implements AssociativeMemory {
     }
 
 
+    /**
+     * Строки матрицы в одном заранее выделенном буфере, без промежуточных строк на каждую строку матрицы
+     * (для просмотра больших массивов по словам - MemoryRenderer).
+     */
     @Override
     public String toString() {
-        StringBuilder output = new StringBuilder();
-        int i = 0;
-        for (Boolean[] bits : associativeArray) {
-            output.append(String.format("[%#x] ", i)).append(toDig(bits)).append('\n');
-            i++;
+        int columns = associativeArray.length == 0 ? 0 : associativeArray[0].length;
+        StringBuilder output = new StringBuilder(9 + associativeArray.length * (columns + 12));
+        output.append("Memory{\n");
+        for (int i = 0; i < associativeArray.length; i++) {
+            output.append("[0x").append(Integer.toHexString(i)).append("] ");
+            for (Boolean bit : associativeArray[i]) {
+                output.append(Boolean.TRUE.equals(bit) ? '1' : '0');
+            }
+            output.append('\n');
         }
-        return "Memory{\n" + output + '}';
+        return output.append('}').toString();
     }
 }
@@ -0,0 +1,687 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.kernel.BitKernels;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Память по разрядным срезам в сжатом виде (по образцу roaring bitmap).
+ * Срез делится на контейнеры по CONTAINER_LENGTH элементов (4096 слов); контейнер хранится как
+ * ZEROS или ONES (общие экземпляры без данных), список отрезков единиц RUNS (4 байта на отрезок)
+ * или битовая карта BITMAP (512 байт). При каждой записи выбирается меньшее представление.
+ * Поиск с маской, поиск по интервалам и логические операции над срезами работают с контейнерами
+ * напрямую: ZEROS и ONES решают контейнер целиком без чтения данных, отрезки применяются
+ * заполнением диапазонов, а битовая карта разворачивается только в буфер одного контейнера.
+ * Чтение и запись срезов (getSlice/setSlice) разворачивают и сжимают контейнеры, поэтому
+ * с памятью работают и все остальные алгоритмы. Контейнеры неизменяемы; запись в часть контейнера
+ * синхронизирована по срезу, так что шарды с границами внутри контейнера не теряют изменений.
+ */
+public class CompressedAssociativeMemory implements AssociativeMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(CompressedAssociativeMemory.class);
+    public static final int CONTAINER_LENGTH = 64;
+    private static final int CONTAINER_SHIFT = 12;
+    private static final int CONTAINER_BITS = 1 << CONTAINER_SHIFT;
+    /**
+     * Больше отрезков выгоднее хранить битовой картой: 4 байта на отрезок против 512 байт.
+     */
+    private static final int MAX_RUNS = 128;
+    private static final byte ZEROS = 0;
+    private static final byte ONES = 1;
+    private static final byte RUNS = 2;
+    private static final byte BITMAP = 3;
+    private static final Container ZERO_CONTAINER = new Container(ZEROS, null, null);
+    private static final Container ONE_CONTAINER = new Container(ONES, null, null);
+    private static final long[] ZERO_WORDS = new long[CONTAINER_LENGTH];
+    private static final char[] NO_RUNS = new char[0];
+    /**
+     * Таблица истинности !x1 для mergeRuns.
+     */
+    private static final boolean[] NOT_FIRST = {true, true, false, false};
+    private static final long[] ONE_WORDS = new long[CONTAINER_LENGTH];
+
+    static {
+        Arrays.fill(ONE_WORDS, -1L);
+    }
+
+    private final int wordCount;
+    private final int wordWidth;
+    private final int length;
+    private final Container[][] columns;
+    /**
+     * Все единицы последнего неполного контейнера (разряды за концом памяти - нули).
+     */
+    private final Container tailOnes;
+    private final BitKernels kernels = BitKernels.get();
+
+    private static final class Container {
+        private final byte kind;
+        /**
+         * Пары начало, конец (не включая) отрезков единиц, по возрастанию.
+         */
+        private final char[] runs;
+        private final long[] bits;
+
+        private Container(byte kind, char[] runs, long[] bits) {
+            this.kind = kind;
+            this.runs = runs;
+            this.bits = bits;
+        }
+
+        private boolean uniform() {
+            return kind == ZEROS || kind == ONES;
+        }
+
+        private long bytes() {
+            return switch (kind) {
+                case RUNS -> 32 + runs.length * 2L;
+                case BITMAP -> 32 + bits.length * 8L;
+                default -> 0;
+            };
+        }
+    }
+
+    /**
+     * Количество контейнеров каждого вида и занимаемая ими память в сравнении с упакованным срезом.
+     */
+    public record Stats(long zeros, long ones, long runs, long bitmaps, long bytes, long denseBytes) {
+
+        public double ratio() {
+            return bytes == 0 ? Double.POSITIVE_INFINITY : (double) denseBytes / bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("containers: %d zeros, %d ones, %d runs, %d bitmaps; %d bytes vs %d dense (x%.1f)",
+                    zeros, ones, runs, bitmaps, bytes, denseBytes, ratio());
+        }
+    }
+
+    public CompressedAssociativeMemory(int wordCount, int wordWidth) {
+        if (wordCount < 0)
+            throw new IllegalArgumentException("wordCount must be non-negative: " + wordCount);
+        if (wordWidth < 1 || wordWidth > PackedAssociativeMemory.MAX_WORD_WIDTH)
+            throw new IllegalArgumentException("wordWidth must be in [1, " + PackedAssociativeMemory.MAX_WORD_WIDTH + "]: " + wordWidth);
+        this.wordCount = wordCount;
+        this.wordWidth = wordWidth;
+        this.length = BitSlices.length(wordCount);
+        int containers = (length + CONTAINER_LENGTH - 1) / CONTAINER_LENGTH;
+        this.columns = new Container[wordWidth][containers];
+        for (Container[] column : columns) {
+            Arrays.fill(column, ZERO_CONTAINER);
+        }
+        this.tailOnes = containers == 0 || limit(containers - 1) == CONTAINER_BITS
+                ? ONE_CONTAINER : new Container(RUNS, new char[]{0, (char) limit(containers - 1)}, null);
+        log.info("initialize Compressed Memory {}x{} in {} containers per slice", wordCount, wordWidth, containers);
+    }
+
+    /**
+     * Копирует содержимое другой памяти.
+     */
+    public CompressedAssociativeMemory(AssociativeMemory memory) {
+        this(memory.wordCount(), memory.wordWidth());
+        long[] slice = new long[length];
+        for (int k = 0; k < wordWidth; k++) {
+            memory.getSlice(k, slice);
+            setSlice(k, slice);
+        }
+    }
+
+    /**
+     * Сжатая память, в том числе за CountingAssociativeMemory, или null.
+     */
+    public static CompressedAssociativeMemory unwrap(AssociativeMemory memory) {
+        if (memory instanceof CountingAssociativeMemory counting) memory = counting.delegate();
+        return memory instanceof CompressedAssociativeMemory compressed ? compressed : null;
+    }
+
+    /**
+     * Учитывает в счётчиках CountingAssociativeMemory (если memory - она) срезы, обработанные
+     * операциями над сжатыми контейнерами в обход getSlice/setSlice.
+     */
+    public static void countColumns(AssociativeMemory memory, int reads, int writes) {
+        if (!(memory instanceof CountingAssociativeMemory counting)) return;
+        for (int i = 0; i < reads; i++) {
+            counting.counters().readColumn(memory.wordCount());
+        }
+        for (int i = 0; i < writes; i++) {
+            counting.counters().writeColumn(memory.wordCount());
+        }
+    }
+
+    public Stats stats() {
+        long zeros = 0;
+        long ones = 0;
+        long runs = 0;
+        long bitmaps = 0;
+        long bytes = 0;
+        for (Container[] column : columns) {
+            bytes += 16 + column.length * 4L;
+            for (Container container : column) {
+                switch (container.kind) {
+                    case ZEROS -> zeros++;
+                    case ONES -> ones++;
+                    case RUNS -> runs++;
+                    default -> bitmaps++;
+                }
+                bytes += container.bytes();
+            }
+        }
+        return new Stats(zeros, ones, runs, bitmaps, bytes, (long) wordWidth * length * Long.BYTES);
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        checkAddress(j);
+        return contains(columns[bitOf(i, j)][j >>> CONTAINER_SHIFT], j & (CONTAINER_BITS - 1));
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        checkAddress(j);
+        setBit(bitOf(i, j), j, Boolean.TRUE.equals(bit));
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordWidth() {
+        return wordWidth;
+    }
+
+    @Override
+    public long getWord(int address) {
+        checkAddress(address);
+        long word = 0;
+        for (int k = 0; k < wordWidth; k++) {
+            word <<= 1;
+            if (contains(columns[k][address >>> CONTAINER_SHIFT], address & (CONTAINER_BITS - 1))) word |= 1;
+        }
+        return word;
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        checkAddress(address);
+        for (int k = 0; k < wordWidth; k++) {
+            setBit(k, address, ((word >>> (wordWidth - 1 - k)) & 1) == 1);
+        }
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        Container[] column = columns[bit];
+        for (int c = from / CONTAINER_LENGTH; c * CONTAINER_LENGTH < to; c++) {
+            int base = c * CONTAINER_LENGTH;
+            expand(column[c], target, base, Math.max(from, base) - base, Math.min(to, base + CONTAINER_LENGTH) - base);
+        }
+    }
+
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        Container[] column = columns[bit];
+        long[] words = new long[CONTAINER_LENGTH];
+        for (int c = from / CONTAINER_LENGTH; c * CONTAINER_LENGTH < to; c++) {
+            int base = c * CONTAINER_LENGTH;
+            int start = Math.max(from, base);
+            int end = Math.min(to, Math.min(length, base + CONTAINER_LENGTH));
+            if (start == base && end == Math.min(length, base + CONTAINER_LENGTH)) {
+                Arrays.fill(words, 0L);
+                System.arraycopy(slice, start, words, 0, end - start);
+                if (end == length) words[end - 1 - base] &= BitSlices.tailMask(wordCount);
+                column[c] = compress(words, c);
+            } else {
+                synchronized (column) {
+                    expand(column[c], words, 0, 0, CONTAINER_LENGTH);
+                    System.arraycopy(slice, start, words, start - base, end - start);
+                    if (end == length) words[end - 1 - base] &= BitSlices.tailMask(wordCount);
+                    column[c] = compress(words, c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Поиск с маской по элементам тегов from..to-1 (разряд 0 - старший бит слова).
+     * refine = false: tags = совпадающие слова; refine = true: теги снимаются с несовпадающих слов.
+     * Контейнер, в котором один из срезов маски ZEROS (ONES) при ожидаемой 1 (0), не совпадает целиком;
+     * ONES (ZEROS) при ожидаемой 1 (0) контейнер не ограничивает. Возвращает количество помеченных слов.
+     */
+    public int match(long comparand, long mask, long[] tags, int from, int to, boolean refine) {
+        long[] result = new long[CONTAINER_LENGTH];
+        Container[] constraints = new Container[wordWidth];
+        boolean[] expected = new boolean[wordWidth];
+        long count = 0;
+        for (int c = from / CONTAINER_LENGTH; c * CONTAINER_LENGTH < to; c++) {
+            int base = c * CONTAINER_LENGTH;
+            int start = Math.max(from, base);
+            int end = Math.min(to, base + CONTAINER_LENGTH);
+            if (refine && isZero(tags, start, end)) continue;
+            int constrained = 0;
+            boolean empty = false;
+            for (int bit = 0; bit < wordWidth && !empty; bit++) {
+                int shift = wordWidth - 1 - bit;
+                if (((mask >>> shift) & 1) == 0) continue;
+                boolean one = ((comparand >>> shift) & 1) == 1;
+                Container container = columns[bit][c];
+                if (container.kind == (one ? ZEROS : ONES)) empty = true;
+                else if (container.kind != (one ? ONES : ZEROS)) {
+                    constraints[constrained] = container;
+                    expected[constrained++] = one;
+                }
+            }
+            if (empty) {
+                Arrays.fill(tags, start, end, 0L);
+                continue;
+            }
+            if (refine) System.arraycopy(tags, start, result, start - base, end - start);
+            else Arrays.fill(result, start - base, end - base, -1L);
+            // отрезки дешевле битовых карт и часто обнуляют большую часть контейнера
+            for (int q = 0; q < constrained; q++) {
+                if (constraints[q].kind == RUNS) applyRuns(constraints[q].runs, expected[q], result);
+            }
+            for (int q = 0; q < constrained; q++) {
+                if (constraints[q].kind != BITMAP) continue;
+                if (isZero(result, start - base, end - base)) break;
+                kernels.match(result, constraints[q].bits, expected[q] ? 0L : -1L, start - base, end - base);
+            }
+            System.arraycopy(result, start - base, tags, start, end - start);
+        }
+        if (to == length && length > 0) tags[length - 1] &= BitSlices.tailMask(wordCount);
+        for (int i = from; i < to; i++) {
+            count += Long.bitCount(tags[i]);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Поиск по интервалам значений поля по элементам тегов from..to-1 (границы должны помещаться в поле).
+     * refine - как в match. Контейнер, в котором все срезы поля ZEROS или ONES, содержит одно значение
+     * поля и решается одной проверкой; в остальных срезы ZEROS и ONES не разворачиваются.
+     * Возвращает количество помеченных слов.
+     */
+    public int range(Field field, List<Range> ranges, long[] tags, int from, int to, boolean refine) {
+        int bounds = ranges.size() * 2;
+        long[][] greater = new long[bounds][CONTAINER_LENGTH];
+        long[][] less = new long[bounds][CONTAINER_LENGTH];
+        long[] column = new long[CONTAINER_LENGTH];
+        long[] result = new long[CONTAINER_LENGTH];
+        long count = 0;
+        for (int c = from / CONTAINER_LENGTH; c * CONTAINER_LENGTH < to; c++) {
+            int base = c * CONTAINER_LENGTH;
+            int start = Math.max(from, base);
+            int end = Math.min(to, base + CONTAINER_LENGTH);
+            if (refine && isZero(tags, start, end)) continue;
+            long value = 0;
+            boolean uniform = true;
+            for (int bit = field.width() - 1; bit >= 0 && uniform; bit--) {
+                Container container = columns[field.slice(bit)][c];
+                uniform = container.uniform();
+                if (container.kind == ONES) value |= 1L << bit;
+            }
+            if (uniform) {
+                Arrays.fill(result, contains(ranges, value) ? -1L : 0L);
+            } else {
+                for (int b = 0; b < bounds; b++) {
+                    Arrays.fill(greater[b], 0L);
+                    Arrays.fill(less[b], 0L);
+                }
+                for (int bit = field.width() - 1; bit >= 0; bit--) {
+                    Container container = columns[field.slice(bit)][c];
+                    long[] slice = switch (container.kind) {
+                        case ZEROS -> ZERO_WORDS;
+                        case ONES -> ONE_WORDS;
+                        default -> words(container, column);
+                    };
+                    for (int b = 0; b < bounds; b++) {
+                        Range range = ranges.get(b >>> 1);
+                        boolean boundBit = (((b & 1) == 0 ? range.lower() : range.upper()) >>> bit & 1) == 1;
+                        // срез, совпадающий с разрядом границы во всех словах, ничего не решает
+                        if (container.kind == (boundBit ? ONES : ZEROS)) continue;
+                        kernels.rangeBit(greater[b], less[b], slice, 0, CONTAINER_LENGTH, boundBit);
+                    }
+                }
+                Arrays.fill(result, 0L);
+                for (int r = 0; r < ranges.size(); r++) {
+                    Range range = ranges.get(r);
+                    long[] aboveLower = range.lowerInclusive() ? less[2 * r] : greater[2 * r];
+                    long[] belowUpper = range.upperInclusive() ? greater[2 * r + 1] : less[2 * r + 1];
+                    kernels.rangeCombine(aboveLower, range.lowerInclusive() ? -1L : 0L,
+                            belowUpper, range.upperInclusive() ? -1L : 0L, result, 0, CONTAINER_LENGTH);
+                }
+            }
+            for (int i = start; i < end; i++) {
+                tags[i] = refine ? tags[i] & result[i - base] : result[i - base];
+            }
+        }
+        if (to == length && length > 0) tags[length - 1] &= BitSlices.tailMask(wordCount);
+        for (int i = from; i < to; i++) {
+            count += Long.bitCount(tags[i]);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Срез destination = f(source1, source2) по контейнерам. Если один из контейнеров однородный
+     * (или функция от него не зависит), f сводится к константе, копии или инверсии другого контейнера;
+     * отрезки с отрезками объединяются проходом по границам отрезков, и только при участии
+     * битовой карты контейнер обрабатывается поэлементно.
+     */
+    public void logic(LogicOperationType operation, int destination, int source1, int source2) {
+        Container[] first = columns[source1];
+        Container[] second = columns[source2];
+        Container[] target = columns[destination];
+        boolean[] table = new boolean[4];
+        for (int t = 0; t < 4; t++) {
+            table[t] = operation.apply((t & 2) != 0 ? -1L : 0L, (t & 1) != 0 ? -1L : 0L) != 0;
+        }
+        boolean usesFirst = table[0] != table[2] || table[1] != table[3];
+        boolean usesSecond = table[0] != table[1] || table[2] != table[3];
+        char[] buffer = new char[4 * MAX_RUNS + 2];
+        long[] x1 = new long[CONTAINER_LENGTH];
+        long[] x2 = new long[CONTAINER_LENGTH];
+        for (int c = 0; c < target.length; c++) {
+            Container a = first[c];
+            Container b = second[c];
+            if (!usesSecond || b.uniform()) {
+                int index = usesSecond && b.kind == ONES ? 1 : 0;
+                target[c] = unary(table[index], table[2 | index], a, c, buffer);
+            } else if (!usesFirst || a.uniform()) {
+                int index = usesFirst && a.kind == ONES ? 2 : 0;
+                target[c] = unary(table[index], table[index | 1], b, c, buffer);
+            } else if (a.kind == RUNS && b.kind == RUNS) {
+                target[c] = mergeRuns(table, a.runs, b.runs, c, buffer);
+            } else {
+                long[] result = new long[CONTAINER_LENGTH];
+                kernels.logic(operation, words(a, x1), words(b, x2), result, 0, CONTAINER_LENGTH);
+                clearBits(result, limit(c), CONTAINER_BITS);
+                target[c] = compress(result, c, false);
+            }
+        }
+    }
+
+    /**
+     * g(x) для контейнера x по значениям g(0) = zero и g(1) = one.
+     */
+    private Container unary(boolean zero, boolean one, Container x, int c, char[] buffer) {
+        if (zero == one) return zero ? ones(c) : ZERO_CONTAINER;
+        if (one) return x;
+        return switch (x.kind) {
+            case ZEROS -> ones(c);
+            case ONES -> ZERO_CONTAINER;
+            case RUNS -> mergeRuns(NOT_FIRST, x.runs, NO_RUNS, c, buffer);
+            default -> {
+                long[] words = new long[CONTAINER_LENGTH];
+                for (int i = 0; i < CONTAINER_LENGTH; i++) {
+                    words[i] = ~x.bits[i];
+                }
+                clearBits(words, limit(c), CONTAINER_BITS);
+                yield compress(words, c, false);
+            }
+        };
+    }
+
+    /**
+     * Элементы контейнера: битовая карта без копирования, остальные виды - развёрнутыми в buffer.
+     */
+    private static long[] words(Container container, long[] buffer) {
+        if (container.kind == BITMAP) return container.bits;
+        expand(container, buffer, 0, 0, CONTAINER_LENGTH);
+        return buffer;
+    }
+
+    /**
+     * Отрезки f(a, b) по таблице истинности table[(a ? 2 : 0) | (b ? 1 : 0)].
+     */
+    private Container mergeRuns(boolean[] table, char[] a, char[] b, int c, char[] out) {
+        int limit = limit(c);
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        int position = 0;
+        boolean inA = false;
+        boolean inB = false;
+        while (position < limit) {
+            int next = Math.min(limit, Math.min(i < a.length ? a[i] : limit, j < b.length ? b[j] : limit));
+            if (next > position && table[(inA ? 2 : 0) | (inB ? 1 : 0)]) {
+                if (size > 0 && out[size - 1] == position) {
+                    out[size - 1] = (char) next;
+                } else {
+                    out[size++] = (char) position;
+                    out[size++] = (char) next;
+                }
+            }
+            position = next;
+            if (i < a.length && a[i] == position) {
+                inA = !inA;
+                i++;
+            }
+            if (j < b.length && b[j] == position) {
+                inB = !inB;
+                j++;
+            }
+        }
+        int runs = size / 2;
+        if (runs == 0) return ZERO_CONTAINER;
+        if (runs == 1 && out[0] == 0 && out[1] == limit) return ones(c);
+        if (runs <= MAX_RUNS) return new Container(RUNS, Arrays.copyOf(out, size), null);
+        long[] words = new long[CONTAINER_LENGTH];
+        for (int r = 0; r < size; r += 2) {
+            setBits(words, out[r], out[r + 1]);
+        }
+        return new Container(BITMAP, null, words);
+    }
+
+    private void setBit(int bit, int address, boolean one) {
+        Container[] column = columns[bit];
+        int c = address >>> CONTAINER_SHIFT;
+        synchronized (column) {
+            Container container = column[c];
+            if (contains(container, address & (CONTAINER_BITS - 1)) == one) return;
+            long[] words = new long[CONTAINER_LENGTH];
+            expand(container, words, 0, 0, CONTAINER_LENGTH);
+            BitSlices.set(words, address & (CONTAINER_BITS - 1), one);
+            column[c] = compress(words, c);
+        }
+    }
+
+    /**
+     * Наименьшее представление 64 элементов среза контейнера c (words копируется).
+     */
+    private Container compress(long[] words, int c) {
+        return compress(words, c, true);
+    }
+
+    /**
+     * Наименьшее представление; copy = false - words больше не изменяется и может стать битовой картой без копирования.
+     * Подсчёт отрезков прекращается, как только их больше MAX_RUNS.
+     */
+    private Container compress(long[] words, int c, boolean copy) {
+        int runs = 0;
+        long carry = 0;
+        boolean full = true;
+        for (int i = 0; i < CONTAINER_LENGTH && runs <= MAX_RUNS; i++) {
+            long word = words[i];
+            runs += Long.bitCount(word & ~((word << 1) | carry));
+            carry = word >>> 63;
+            full &= word == -1L;
+        }
+        if (runs == 0) return ZERO_CONTAINER;
+        if (full) return ONE_CONTAINER;
+        if (runs > MAX_RUNS) return new Container(BITMAP, null, copy ? words.clone() : words);
+        char[] pairs = new char[runs * 2];
+        int position = 0;
+        for (int r = 0; r < runs; r++) {
+            int start = nextBit(words, position, true);
+            position = nextBit(words, start, false);
+            pairs[2 * r] = (char) start;
+            pairs[2 * r + 1] = (char) position;
+        }
+        return runs == 1 && pairs[0] == 0 && pairs[1] == limit(c) ? ones(c) : new Container(RUNS, pairs, null);
+    }
+
+    private Container ones(int c) {
+        return c == columns[0].length - 1 ? tailOnes : ONE_CONTAINER;
+    }
+
+    /**
+     * Количество разрядов контейнера c, соответствующих словам памяти.
+     */
+    private int limit(int c) {
+        return (int) Math.min(CONTAINER_BITS, (long) wordCount - (long) c * CONTAINER_BITS);
+    }
+
+    /**
+     * target[offset + from .. offset + to) = элементы from..to-1 контейнера.
+     */
+    private static void expand(Container container, long[] target, int offset, int from, int to) {
+        switch (container.kind) {
+            case ZEROS -> Arrays.fill(target, offset + from, offset + to, 0L);
+            case ONES -> Arrays.fill(target, offset + from, offset + to, -1L);
+            case BITMAP -> System.arraycopy(container.bits, from, target, offset + from, to - from);
+            default -> {
+                Arrays.fill(target, offset + from, offset + to, 0L);
+                char[] runs = container.runs;
+                for (int r = 0; r < runs.length; r += 2) {
+                    int start = Math.max(runs[r], from << 6);
+                    int end = Math.min(runs[r + 1], to << 6);
+                    if (start < end) setBits(target, offset, start, end);
+                }
+            }
+        }
+    }
+
+    /**
+     * Оставляет в result слова, разряд которых в отрезках равен one.
+     */
+    private static void applyRuns(char[] runs, boolean one, long[] result) {
+        if (one) {
+            int previous = 0;
+            for (int r = 0; r < runs.length; r += 2) {
+                clearBits(result, previous, runs[r]);
+                previous = runs[r + 1];
+            }
+            clearBits(result, previous, CONTAINER_BITS);
+        } else {
+            for (int r = 0; r < runs.length; r += 2) {
+                clearBits(result, runs[r], runs[r + 1]);
+            }
+        }
+    }
+
+    private static boolean contains(Container container, int index) {
+        return switch (container.kind) {
+            case ZEROS -> false;
+            case ONES -> true;
+            case BITMAP -> BitSlices.get(container.bits, index);
+            default -> {
+                char[] runs = container.runs;
+                int low = 0;
+                int high = runs.length / 2 - 1;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    if (index < runs[2 * middle]) high = middle - 1;
+                    else if (index >= runs[2 * middle + 1]) low = middle + 1;
+                    else yield true;
+                }
+                yield false;
+            }
+        };
+    }
+
+    private static boolean contains(List<Range> ranges, long value) {
+        for (Range range : ranges) {
+            int lower = Long.compareUnsigned(value, range.lower());
+            int upper = Long.compareUnsigned(value, range.upper());
+            if ((range.lowerInclusive() ? lower >= 0 : lower > 0) && (range.upperInclusive() ? upper <= 0 : upper < 0))
+                return true;
+        }
+        return false;
+    }
+
+    private static void setBits(long[] words, int from, int to) {
+        setBits(words, 0, from, to);
+    }
+
+    /**
+     * Устанавливает разряды from..to-1 (from < to) массива, начинающегося с words[offset].
+     */
+    private static void setBits(long[] words, int offset, int from, int to) {
+        int first = offset + (from >>> 6);
+        int last = offset + ((to - 1) >>> 6);
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        Arrays.fill(words, first + 1, last, -1L);
+        words[last] |= lastMask;
+    }
+
+    private static void clearBits(long[] words, int from, int to) {
+        if (from >= to) return;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[first] &= ~firstMask;
+        Arrays.fill(words, first + 1, last, 0L);
+        words[last] &= ~lastMask;
+    }
+
+    /**
+     * Первый разряд не меньше from, равный one (или CONTAINER_BITS).
+     */
+    private static int nextBit(long[] words, int from, boolean one) {
+        int index = from >>> 6;
+        if (index == words.length) return CONTAINER_BITS;
+        long word = (one ? words[index] : ~words[index]) & (-1L << from);
+        while (true) {
+            if (word != 0) return (index << 6) + Long.numberOfTrailingZeros(word);
+            if (++index == words.length) return CONTAINER_BITS;
+            word = one ? words[index] : ~words[index];
+        }
+    }
+
+    private static boolean isZero(long[] words, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (words[i] != 0) return false;
+        }
+        return true;
+    }
+
+    private int bitOf(int i, int j) {
+        return Math.floorMod(i - j, wordWidth);
+    }
+
+    private void checkAddress(int address) {
+        if (address < 0 || address >= wordCount)
+            throw new IndexOutOfBoundsException("address " + address + " out of [0, " + wordCount + ")");
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedMemory{" + wordCount + "x" + wordWidth + ", " + stats() + '}';
+    }
+}
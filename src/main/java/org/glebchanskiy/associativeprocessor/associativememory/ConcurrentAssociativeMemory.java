@@ -0,0 +1,248 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обёртка над памятью для нескольких процессоров (по одному на поток),
+ * работающих с общей памятью. Регистры и буферы у каждого процессора свои,
+ * общая только память.
+ * Столбцы (адреса слов) делятся на полосы - непрерывные диапазоны элементов срезов,
+ * у каждой полосы свой StampedLock. Чтения выполняются оптимистично, без захвата
+ * блокировки, и повторяются под блокировкой чтения, только если в полосу успели записать.
+ * Запись захватывает блокировку записи только своих полос.
+ * Отдельное обращение согласовано внутри каждой полосы. Поиск читает много срезов, поэтому
+ * MatchSearch, RangeSearch и ExtremumSearch выполняют его целиком как одно оптимистичное чтение
+ * (optimisticRead): штампы всех полос проверяются после поиска, и он не смешивает срезы до и после записи.
+ * Составные операции процессора с записью (арифметика, логика над срезами) не атомарны целиком.
+ * Чтение из обёрнутой памяти не должно изменять её состояние, поэтому
+ * DualLayoutAssociativeMemory, досинхронизирующая копии при чтении, не поддерживается,
+ * в том числе под известными обёртками.
+ */
+public class ConcurrentAssociativeMemory implements AssociativeMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentAssociativeMemory.class);
+    public static final int DEFAULT_STRIPES = 16;
+    private final AssociativeMemory memory;
+    private final StampedLock[] locks;
+    private final int stripeLength;
+
+    public ConcurrentAssociativeMemory(AssociativeMemory memory) {
+        this(memory, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentAssociativeMemory(AssociativeMemory memory, int stripes) {
+        if (stripes < 1)
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        if (innermost(memory) instanceof DualLayoutAssociativeMemory dual)
+            throw new IllegalArgumentException("reads of " + dual.getClass().getSimpleName() + " modify it and cannot run optimistically");
+        int length = Math.max(1, BitSlices.length(memory.wordCount()));
+        this.memory = memory;
+        this.stripeLength = (length + stripes - 1) / stripes;
+        this.locks = new StampedLock[(length + stripeLength - 1) / stripeLength];
+        for (int s = 0; s < locks.length; s++) {
+            locks[s] = new StampedLock();
+        }
+        log.info("initialize Concurrent Memory over {} {}x{} with {} stripes of {} words",
+                memory.getClass().getSimpleName(), memory.wordCount(), memory.wordWidth(), locks.length, stripeLength << 6);
+    }
+
+    /**
+     * ConcurrentAssociativeMemory, в том числе за CountingAssociativeMemory и TrackingAssociativeMemory, или null.
+     */
+    public static ConcurrentAssociativeMemory unwrap(AssociativeMemory memory) {
+        while (true) {
+            if (memory instanceof ConcurrentAssociativeMemory concurrent) return concurrent;
+            if (memory instanceof CountingAssociativeMemory counting) memory = counting.delegate();
+            else if (memory instanceof TrackingAssociativeMemory tracking) memory = tracking.delegate();
+            else return null;
+        }
+    }
+
+    /**
+     * Чтение read над memory: под ConcurrentAssociativeMemory (unwrap) - как одно оптимистичное
+     * чтение (optimisticRead), иначе просто read.get().
+     */
+    public static <T> T read(AssociativeMemory memory, Supplier<T> read) {
+        ConcurrentAssociativeMemory concurrent = unwrap(memory);
+        return concurrent == null ? read.get() : concurrent.optimisticRead(read);
+    }
+
+    /**
+     * Выполняет read, читающий память несколькими обращениями, как одно оптимистичное чтение:
+     * штампы всех полос берутся до начала и проверяются после конца. Если в какую-либо полосу
+     * успели записать (или read упал на несогласованных данных), read повторяется под блокировками
+     * чтения всех полос. Поэтому read должен допускать повторное выполнение.
+     */
+    public <T> T optimisticRead(Supplier<T> read) {
+        long[] stamps = new long[locks.length];
+        boolean acquired = true;
+        for (int s = 0; s < locks.length; s++) {
+            stamps[s] = locks[s].tryOptimisticRead();
+            acquired &= stamps[s] != 0;
+        }
+        if (acquired) {
+            try {
+                T result = read.get();
+                if (validate(stamps)) return result;
+            } catch (RuntimeException e) {
+                if (validate(stamps)) throw e;
+            }
+        }
+        for (int s = 0; s < locks.length; s++) {
+            stamps[s] = locks[s].readLock();
+        }
+        try {
+            return read.get();
+        } finally {
+            for (int s = 0; s < locks.length; s++) {
+                locks[s].unlockRead(stamps[s]);
+            }
+        }
+    }
+
+    private boolean validate(long[] stamps) {
+        for (int s = 0; s < locks.length; s++) {
+            if (!locks[s].validate(stamps[s])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Память под известными обёртками (CountingAssociativeMemory, TrackingAssociativeMemory,
+     * ConcurrentAssociativeMemory), которые читают её без изменений.
+     */
+    private static AssociativeMemory innermost(AssociativeMemory memory) {
+        while (true) {
+            if (memory instanceof CountingAssociativeMemory counting) memory = counting.delegate();
+            else if (memory instanceof TrackingAssociativeMemory tracking) memory = tracking.delegate();
+            else if (memory instanceof ConcurrentAssociativeMemory concurrent) memory = concurrent.delegate();
+            else return memory;
+        }
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        StampedLock lock = lockOf(j);
+        long stamp = lock.tryOptimisticRead();
+        Boolean bit = memory.get(i, j);
+        if (lock.validate(stamp)) return bit;
+        stamp = lock.readLock();
+        try {
+            return memory.get(i, j);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        StampedLock lock = lockOf(j);
+        long stamp = lock.writeLock();
+        try {
+            memory.set(i, j, bit);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    @Override
+    public int wordCount() {
+        return memory.wordCount();
+    }
+
+    @Override
+    public int wordWidth() {
+        return memory.wordWidth();
+    }
+
+    @Override
+    public long getWord(int address) {
+        StampedLock lock = lockOf(address);
+        long stamp = lock.tryOptimisticRead();
+        long word = memory.getWord(address);
+        if (lock.validate(stamp)) return word;
+        stamp = lock.readLock();
+        try {
+            return memory.getWord(address);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        StampedLock lock = lockOf(address);
+        long stamp = lock.writeLock();
+        try {
+            memory.setWord(address, word);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        while (from < to) {
+            int stripe = from / stripeLength;
+            int end = Math.min(to, (stripe + 1) * stripeLength);
+            StampedLock lock = locks[stripe];
+            long stamp = lock.tryOptimisticRead();
+            memory.getSlice(bit, target, from, end);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    memory.getSlice(bit, target, from, end);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            from = end;
+        }
+    }
+
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        while (from < to) {
+            int stripe = from / stripeLength;
+            int end = Math.min(to, (stripe + 1) * stripeLength);
+            StampedLock lock = locks[stripe];
+            long stamp = lock.writeLock();
+            try {
+                memory.setSlice(bit, slice, from, end);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            from = end;
+        }
+    }
+
+    public int stripes() {
+        return locks.length;
+    }
+
+    public AssociativeMemory delegate() {
+        return memory;
+    }
+
+    private StampedLock lockOf(int address) {
+        if (address < 0 || address >= memory.wordCount())
+            throw new IndexOutOfBoundsException("address " + address + " out of [0, " + memory.wordCount() + ")");
+        return locks[(address >>> 6) / stripeLength];
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentMemory{" + memory.getClass().getSimpleName() + ", " + memory.wordCount() + "x" + memory.wordWidth()
+                + ", stripes=" + locks.length + '}';
+    }
+}
@@ -0,0 +1,90 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.metrics.MemoryCounters;
+
+/**
+ * Обёртка над памятью, считающая обращения к столбцам (срезам), словам и отдельным разрядам
+ * и количество прочитанных и записанных бит. Подходит для любой реализации памяти.
+ */
+public class CountingAssociativeMemory implements AssociativeMemory {
+
+    private final AssociativeMemory memory;
+    private final MemoryCounters counters;
+
+    public CountingAssociativeMemory(AssociativeMemory memory) {
+        this(memory, new MemoryCounters());
+    }
+
+    public CountingAssociativeMemory(AssociativeMemory memory, MemoryCounters counters) {
+        this.memory = memory;
+        this.counters = counters;
+    }
+
+    public MemoryCounters counters() {
+        return counters;
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        counters.readBit();
+        return memory.get(i, j);
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        counters.writeBit();
+        memory.set(i, j, bit);
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    @Override
+    public int wordCount() {
+        return memory.wordCount();
+    }
+
+    @Override
+    public int wordWidth() {
+        return memory.wordWidth();
+    }
+
+    @Override
+    public long getWord(int address) {
+        counters.readWord(memory.wordWidth());
+        return memory.getWord(address);
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        counters.writeWord(memory.wordWidth());
+        memory.setWord(address, word);
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        counters.readColumn(bits(from, to));
+        memory.getSlice(bit, target, from, to);
+    }
+
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        counters.writeColumn(bits(from, to));
+        memory.setSlice(bit, slice, from, to);
+    }
+
+    public AssociativeMemory delegate() {
+        return memory;
+    }
+
+    private long bits(int from, int to) {
+        return Math.max(0, Math.min((long) to << 6, memory.wordCount()) - ((long) from << 6));
+    }
+
+    @Override
+    public String toString() {
+        return memory.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+import static org.glebchanskiy.associativeprocessor.util.APUtils.toDig;
+
+/**
+ * Ассоциативная память с двумя копиями данных: по словам (один long на слово)
+ * и по разрядным срезам (как в PackedAssociativeMemory).
+ * Копии синхронизируются лениво блоками по 64 слова: запись слова помечает блок
+ * срезов устаревшим, запись среза - блок слов. Устаревший блок пересчитывается
+ * транспонированием матрицы 64x64 только при первом обращении к нему с другой стороны,
+ * поэтому и чтение слова, и чтение среза стоят одно обращение к long.
+ * Разные диапазоны срезов можно обрабатывать из разных потоков, как и в остальных реализациях.
+ */
+public class DualLayoutAssociativeMemory implements AssociativeMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(DualLayoutAssociativeMemory.class);
+    private final int wordCount;
+    private final int wordWidth;
+    private final long[] words;
+    private final long[][] slices;
+    private final boolean[] wordsStale;
+    private final boolean[] slicesStale;
+
+    public DualLayoutAssociativeMemory(int wordCount, int wordWidth) {
+        if (wordCount < 0)
+            throw new IllegalArgumentException("wordCount must be non-negative: " + wordCount);
+        if (wordWidth < 1 || wordWidth > PackedAssociativeMemory.MAX_WORD_WIDTH)
+            throw new IllegalArgumentException("wordWidth must be in [1, " + PackedAssociativeMemory.MAX_WORD_WIDTH + "]: " + wordWidth);
+        log.info("initialize Dual Layout Memory {}x{}", wordCount, wordWidth);
+        int blocks = BitSlices.length(wordCount);
+        this.wordCount = wordCount;
+        this.wordWidth = wordWidth;
+        this.words = new long[blocks << 6];
+        this.slices = new long[wordWidth][blocks];
+        this.wordsStale = new boolean[blocks];
+        this.slicesStale = new boolean[blocks];
+    }
+
+    /**
+     * Копирует содержимое другой памяти по срезам.
+     */
+    public DualLayoutAssociativeMemory(AssociativeMemory memory) {
+        this(memory.wordCount(), memory.wordWidth());
+        for (int k = 0; k < wordWidth; k++) {
+            memory.getSlice(k, slices[k]);
+        }
+        Arrays.fill(wordsStale, true);
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        int k = Math.floorMod(i - j, wordWidth);
+        return ((getWord(j) >>> (wordWidth - 1 - k)) & 1) == 1;
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        long mask = 1L << (wordWidth - 1 - Math.floorMod(i - j, wordWidth));
+        long word = getWord(j);
+        setWord(j, Boolean.TRUE.equals(bit) ? word | mask : word & ~mask);
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordWidth() {
+        return wordWidth;
+    }
+
+    @Override
+    public long getWord(int address) {
+        int block = checkAddress(address) >>> 6;
+        if (wordsStale[block]) toWords(block);
+        return words[address];
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        int block = checkAddress(address) >>> 6;
+        if (wordsStale[block]) toWords(block);
+        words[address] = word & widthMask();
+        slicesStale[block] = true;
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        for (int block = from; block < to; block++) {
+            if (slicesStale[block]) toSlices(block);
+        }
+        System.arraycopy(slices[bit], from, target, from, to - from);
+    }
+
+    /**
+     * Перед записью среза досинхронизирует блоки, иначе при следующем пересчёте слов
+     * остальные срезы этих блоков потеряли бы изменения, сделанные через setWord.
+     */
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        long[] target = slices[bit];
+        for (int block = from; block < to; block++) {
+            if (slicesStale[block]) toSlices(block);
+            wordsStale[block] = true;
+        }
+        System.arraycopy(slice, from, target, from, to - from);
+        if (to == target.length && to > from) target[to - 1] &= BitSlices.tailMask(wordCount);
+    }
+
+    /**
+     * Синхронизирует обе копии целиком, чтобы последующие обращения не тратили время на транспонирование.
+     */
+    public void synchronize() {
+        for (int block = 0; block < wordsStale.length; block++) {
+            if (wordsStale[block]) toWords(block);
+            if (slicesStale[block]) toSlices(block);
+        }
+    }
+
+    private void toSlices(int block) {
+        long[] matrix = Arrays.copyOfRange(words, block << 6, (block + 1) << 6);
+        BitSlices.transpose64(matrix);
+        for (int k = 0; k < wordWidth; k++) {
+            slices[k][block] = matrix[wordWidth - 1 - k];
+        }
+        slicesStale[block] = false;
+    }
+
+    private void toWords(int block) {
+        long[] matrix = new long[64];
+        for (int k = 0; k < wordWidth; k++) {
+            matrix[wordWidth - 1 - k] = slices[k][block];
+        }
+        BitSlices.transpose64(matrix);
+        System.arraycopy(matrix, 0, words, block << 6, 64);
+        wordsStale[block] = false;
+    }
+
+    private long widthMask() {
+        return wordWidth == Long.SIZE ? -1L : (1L << wordWidth) - 1;
+    }
+
+    private int checkAddress(int address) {
+        if (address < 0 || address >= wordCount)
+            throw new IndexOutOfBoundsException("address " + address + " out of [0, " + wordCount + ")");
+        return address;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < wordWidth; i++) {
+            Boolean[] bits = new Boolean[wordCount];
+            for (int j = 0; j < wordCount; j++) {
+                bits[j] = get(i, j);
+            }
+            output.append(String.format("[%#x] ", i)).append(toDig(bits)).append('\n');
+        }
+        return "Memory{\n" + output + '}';
+    }
+}
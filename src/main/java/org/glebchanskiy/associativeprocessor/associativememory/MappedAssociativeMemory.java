@@ -0,0 +1,236 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ассоциативная память, отображённая в файл через MappedByteBuffer.
+ * Формат файла:
+ * <pre>
+ * [0]  int   MAGIC ("ASMM")
+ * [4]  short VERSION
+ * [6]  byte  LAYOUT (0 - разрядные срезы подряд, little-endian long)
+ * [7]  byte  зарезервировано
+ * [8]  int   wordWidth
+ * [12] int   wordCount
+ * [16] ...   до HEADER_SIZE - зарезервировано
+ * [HEADER_SIZE] срезы 0..wordWidth-1, каждый по BitSlices.length(wordCount) long
+ * </pre>
+ * Открытие файла только отображает срезы, данные не читаются и не копируются,
+ * поэтому открытие большой памяти не зависит от её размера.
+ */
+public class MappedAssociativeMemory implements AssociativeMemory, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedAssociativeMemory.class);
+    public static final int MAGIC = 0x41534D4D;
+    public static final short VERSION = 1;
+    public static final byte LAYOUT_SLICE_MAJOR = 0;
+    public static final int HEADER_SIZE = 32;
+
+    private final Path path;
+    private final int wordCount;
+    private final int wordWidth;
+    private FileChannel channel;
+    private MappedByteBuffer[] mappings;
+    private LongBuffer[] slices;
+
+    private MappedAssociativeMemory(Path path, FileChannel channel, int wordCount, int wordWidth) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.wordCount = wordCount;
+        this.wordWidth = wordWidth;
+        this.mappings = new MappedByteBuffer[wordWidth];
+        this.slices = new LongBuffer[wordWidth];
+        long sliceBytes = (long) BitSlices.length(wordCount) * Long.BYTES;
+        for (int k = 0; k < wordWidth; k++) {
+            mappings[k] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + k * sliceBytes, sliceBytes);
+            slices[k] = mappings[k].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+    }
+
+    /**
+     * Создаёт (или перезаписывает) файл памяти заданного размера, заполненный нулями.
+     */
+    public static MappedAssociativeMemory create(Path path, int wordCount, int wordWidth) throws IOException {
+        if (wordCount < 0)
+            throw new IllegalArgumentException("wordCount must be non-negative: " + wordCount);
+        if (wordWidth < 1 || wordWidth > PackedAssociativeMemory.MAX_WORD_WIDTH)
+            throw new IllegalArgumentException("wordWidth must be in [1, " + PackedAssociativeMemory.MAX_WORD_WIDTH + "]: " + wordWidth);
+        log.info("create Mapped Memory {}x{} at {}", wordCount, wordWidth, path);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).put(LAYOUT_SLICE_MAJOR).put((byte) 0)
+                    .putInt(wordWidth).putInt(wordCount).rewind();
+            channel.write(header, 0);
+            long size = HEADER_SIZE + (long) wordWidth * BitSlices.length(wordCount) * Long.BYTES;
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            return new MappedAssociativeMemory(path, channel, wordCount, wordWidth);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Открывает существующий файл памяти, проверяя заголовок.
+     */
+    public static MappedAssociativeMemory open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_SIZE)
+                throw new IOException("truncated header: " + path);
+            header.flip();
+            if (header.getInt() != MAGIC)
+                throw new IOException("not an associative memory file: " + path);
+            short version = header.getShort();
+            if (version != VERSION)
+                throw new IOException("unsupported version " + version + ": " + path);
+            byte layout = header.get();
+            if (layout != LAYOUT_SLICE_MAJOR)
+                throw new IOException("unsupported layout " + layout + ": " + path);
+            header.get();
+            int wordWidth = header.getInt();
+            int wordCount = header.getInt();
+            long size = HEADER_SIZE + (long) wordWidth * BitSlices.length(wordCount) * Long.BYTES;
+            if (wordWidth < 1 || wordWidth > PackedAssociativeMemory.MAX_WORD_WIDTH || wordCount < 0 || channel.size() < size)
+                throw new IOException("corrupted header " + wordCount + "x" + wordWidth + ": " + path);
+            log.info("open Mapped Memory {}x{} at {}", wordCount, wordWidth, path);
+            return new MappedAssociativeMemory(path, channel, wordCount, wordWidth);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        LongBuffer slice = slice(Math.floorMod(i - j, wordWidth));
+        return (slice.get(checkAddress(j) >>> 6) & (1L << j)) != 0;
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        LongBuffer slice = slice(Math.floorMod(i - j, wordWidth));
+        int index = checkAddress(j) >>> 6;
+        if (Boolean.TRUE.equals(bit)) slice.put(index, slice.get(index) | (1L << j));
+        else slice.put(index, slice.get(index) & ~(1L << j));
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordWidth() {
+        return wordWidth;
+    }
+
+    @Override
+    public long getWord(int address) {
+        int index = checkAddress(address) >>> 6;
+        long bit = 1L << address;
+        long word = 0;
+        for (int k = 0; k < wordWidth; k++) {
+            word <<= 1;
+            if ((slice(k).get(index) & bit) != 0) word |= 1;
+        }
+        return word;
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        int index = checkAddress(address) >>> 6;
+        long bit = 1L << address;
+        for (int k = 0; k < wordWidth; k++) {
+            LongBuffer slice = slice(k);
+            if (((word >>> (wordWidth - 1 - k)) & 1) == 1) slice.put(index, slice.get(index) | bit);
+            else slice.put(index, slice.get(index) & ~bit);
+        }
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        slice(bit).get(from, target, from, to - from);
+    }
+
+    /**
+     * Срез записывается напрямую в отображение файла.
+     */
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        LongBuffer target = slice(bit);
+        if (to == from) return;
+        target.put(from, slice, from, to - from);
+        if (to == target.limit()) target.put(to - 1, slice[to - 1] & BitSlices.tailMask(wordCount));
+    }
+
+    /**
+     * Сбрасывает изменённые страницы отображения в файл.
+     */
+    public void flush() {
+        checkOpen();
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+    }
+
+    /**
+     * Сбрасывает изменения и закрывает файл. Дальнейшие обращения к памяти запрещены.
+     * Само отображение освобождается сборщиком мусора.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        flush();
+        log.info("close Mapped Memory {}", path);
+        channel.close();
+        channel = null;
+        mappings = null;
+        slices = null;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    private LongBuffer slice(int bit) {
+        checkOpen();
+        return slices[bit];
+    }
+
+    private void checkOpen() {
+        if (channel == null)
+            throw new IllegalStateException("memory is closed: " + path);
+    }
+
+    private int checkAddress(int address) {
+        if (address < 0 || address >= wordCount)
+            throw new IndexOutOfBoundsException("address " + address + " out of [0, " + wordCount + ")");
+        return address;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedMemory{" + path + ", " + wordCount + "x" + wordWidth + '}';
+    }
+}
@@ -0,0 +1,147 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+import static org.glebchanskiy.associativeprocessor.util.APUtils.toDig;
+
+/**
+ * Ассоциативная память, упакованная в long[] по разрядным срезам.
+ * Для каждого разряда слова хранится срез длиной wordCount бит, поэтому
+ * операции над столбцом обрабатывают 64 слова за одну операцию над long.
+ */
+public class PackedAssociativeMemory implements AssociativeMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(PackedAssociativeMemory.class);
+    public static final int MAX_WORD_WIDTH = Long.SIZE;
+    private final int wordWidth;
+    private int wordCount;
+    private long[][] slices;
+
+    public PackedAssociativeMemory(int wordCount, int wordWidth) {
+        if (wordCount < 0)
+            throw new IllegalArgumentException("wordCount must be non-negative: " + wordCount);
+        if (wordWidth < 1 || wordWidth > MAX_WORD_WIDTH)
+            throw new IllegalArgumentException("wordWidth must be in [1, " + MAX_WORD_WIDTH + "]: " + wordWidth);
+        log.info("initialize Packed Memory {}x{}", wordCount, wordWidth);
+        this.wordCount = wordCount;
+        this.wordWidth = wordWidth;
+        this.slices = new long[wordWidth][BitSlices.length(wordCount)];
+    }
+
+    /**
+     * Копирует содержимое другой памяти (например, AssociativeMemoryImpl).
+     */
+    public PackedAssociativeMemory(AssociativeMemory memory) {
+        this(memory.wordCount(), memory.wordWidth());
+        for (int k = 0; k < wordWidth; k++) {
+            memory.getSlice(k, slices[k]);
+        }
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        return BitSlices.get(slices[bitOf(i, j)], checkAddress(j));
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        BitSlices.set(slices[bitOf(i, j)], checkAddress(j), Boolean.TRUE.equals(bit));
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordWidth() {
+        return wordWidth;
+    }
+
+    @Override
+    public long getWord(int address) {
+        int index = checkAddress(address) >>> 6;
+        long bit = 1L << address;
+        long word = 0;
+        for (long[] slice : slices) {
+            word <<= 1;
+            if ((slice[index] & bit) != 0) word |= 1;
+        }
+        return word;
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        int index = checkAddress(address) >>> 6;
+        long bit = 1L << address;
+        for (int k = 0; k < wordWidth; k++) {
+            if (((word >>> (wordWidth - 1 - k)) & 1) == 1) slices[k][index] |= bit;
+            else slices[k][index] &= ~bit;
+        }
+    }
+
+    @Override
+    public long[] getSlice(int bit) {
+        return slices[bit].clone();
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        System.arraycopy(slices[bit], from, target, from, to - from);
+    }
+
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        long[] target = slices[bit];
+        System.arraycopy(slice, from, target, from, to - from);
+        if (to == target.length && to > from) target[to - 1] &= BitSlices.tailMask(wordCount);
+    }
+
+    /**
+     * Изменяет количество слов. Новые слова заполняются нулями, лишние отбрасываются.
+     */
+    public void resize(int newWordCount) {
+        if (newWordCount < 0)
+            throw new IllegalArgumentException("wordCount must be non-negative: " + newWordCount);
+        log.info("resize Packed Memory {} -> {}", wordCount, newWordCount);
+        int length = BitSlices.length(newWordCount);
+        for (int k = 0; k < wordWidth; k++) {
+            long[] slice = Arrays.copyOf(slices[k], length);
+            if (length > 0) slice[length - 1] &= BitSlices.tailMask(newWordCount);
+            slices[k] = slice;
+        }
+        this.wordCount = newWordCount;
+    }
+
+    private int bitOf(int i, int j) {
+        return Math.floorMod(i - j, wordWidth);
+    }
+
+    private int checkAddress(int address) {
+        if (address < 0 || address >= wordCount)
+            throw new IndexOutOfBoundsException("address " + address + " out of [0, " + wordCount + ")");
+        return address;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < wordWidth; i++) {
+            Boolean[] bits = new Boolean[wordCount];
+            for (int j = 0; j < wordCount; j++) {
+                bits[j] = get(i, j);
+            }
+            output.append(String.format("[%#x] ", i)).append(toDig(bits)).append('\n');
+        }
+        return "Memory{\n" + output + '}';
+    }
+}
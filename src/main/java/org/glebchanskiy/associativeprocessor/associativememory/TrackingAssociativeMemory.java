@@ -0,0 +1,92 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Обёртка над памятью со счётчиком версий каждого разрядного столбца (среза).
+ * Запись бита или диапазона среза увеличивает версию своего среза, запись слова - версии
+ * всех срезов. Версия увеличивается после записи, поэтому результат, вычисленный по версиям,
+ * прочитанным до вычисления, считается устаревшим, если запись пересеклась с вычислением.
+ * Счётчики атомарные: шарды процессора пишут срезы из разных потоков.
+ */
+public class TrackingAssociativeMemory implements AssociativeMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackingAssociativeMemory.class);
+    private final AssociativeMemory memory;
+    private final AtomicLongArray versions;
+
+    public TrackingAssociativeMemory(AssociativeMemory memory) {
+        log.info("initialize Tracking Memory over {} {}x{}", memory.getClass().getSimpleName(), memory.wordCount(), memory.wordWidth());
+        this.memory = memory;
+        this.versions = new AtomicLongArray(memory.wordWidth());
+    }
+
+    /**
+     * Версия среза bit: количество записей в него.
+     */
+    public long version(int bit) {
+        return versions.get(bit);
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        return memory.get(i, j);
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        memory.set(i, j, bit);
+        versions.incrementAndGet(Math.floorMod(i - j, memory.wordWidth()));
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    @Override
+    public int wordCount() {
+        return memory.wordCount();
+    }
+
+    @Override
+    public int wordWidth() {
+        return memory.wordWidth();
+    }
+
+    @Override
+    public long getWord(int address) {
+        return memory.getWord(address);
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        memory.setWord(address, word);
+        for (int k = 0; k < versions.length(); k++) {
+            versions.incrementAndGet(k);
+        }
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        memory.getSlice(bit, target, from, to);
+    }
+
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        memory.setSlice(bit, slice, from, to);
+        versions.incrementAndGet(bit);
+    }
+
+    public AssociativeMemory delegate() {
+        return memory;
+    }
+
+    @Override
+    public String toString() {
+        return "TrackingMemory{" + memory.getClass().getSimpleName() + ", " + memory.wordCount() + "x" + memory.wordWidth() + '}';
+    }
+}
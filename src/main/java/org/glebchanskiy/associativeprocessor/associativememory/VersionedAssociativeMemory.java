@@ -0,0 +1,399 @@
+package org.glebchanskiy.associativeprocessor.associativememory;
+
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.glebchanskiy.associativeprocessor.util.APUtils.toDig;
+
+/**
+ * Упакованная память по разрядным срезам со снимками состояния (copy-on-write).
+ * Столбцы (адреса слов) делятся на блоки по blockLength элементов срезов (64 * blockLength слов);
+ * блок хранит все срезы своих столбцов в одном long[] (срез k - с позиции k * длина блока).
+ * Таблица ссылок на блоки общая у памяти и её снимков: snapshot() только запоминает таблицу
+ * и начинает новое поколение - O(1), без копирования данных. Первая запись в блок после снимка
+ * копирует таблицу (один раз за поколение) и сам блок, остальные блоки остаются общими.
+ * Блоки, скопированные в текущем поколении, - грязные: изменённые после последнего снимка
+ * или отката. По ним и по сравнению таблиц двух версий можно откатить, сравнить или
+ * сохранить только изменённые столбцы.
+ * Снимок неизменяем и сам является памятью только для чтения, поэтому его можно читать
+ * (в том числе искать по нему) из другого потока, пока память изменяется.
+ * Разные диапазоны можно писать из разных потоков и после снимка: копирование таблицы и блока
+ * выполняется под монитором памяти, поэтому два потока, пишущие в один блок, получают одну копию.
+ * Сам snapshot() и rollback() не должны выполняться одновременно с записями.
+ */
+public class VersionedAssociativeMemory implements AssociativeMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(VersionedAssociativeMemory.class);
+    public static final int DEFAULT_BLOCK_LENGTH = 64;
+    private final int wordCount;
+    private final int wordWidth;
+    private final int blockLength;
+    private volatile long[][] table;
+    private final int[] generations;
+    private boolean tableShared;
+    private int generation;
+    private final AtomicLong version = new AtomicLong();
+
+    public VersionedAssociativeMemory(int wordCount, int wordWidth) {
+        this(wordCount, wordWidth, DEFAULT_BLOCK_LENGTH);
+    }
+
+    public VersionedAssociativeMemory(int wordCount, int wordWidth, int blockLength) {
+        if (wordCount < 0)
+            throw new IllegalArgumentException("wordCount must be non-negative: " + wordCount);
+        if (wordWidth < 1 || wordWidth > PackedAssociativeMemory.MAX_WORD_WIDTH)
+            throw new IllegalArgumentException("wordWidth must be in [1, " + PackedAssociativeMemory.MAX_WORD_WIDTH + "]: " + wordWidth);
+        if (blockLength < 1)
+            throw new IllegalArgumentException("blockLength must be positive: " + blockLength);
+        this.wordCount = wordCount;
+        this.wordWidth = wordWidth;
+        this.blockLength = blockLength;
+        int length = BitSlices.length(wordCount);
+        int blocks = (length + blockLength - 1) / blockLength;
+        this.table = new long[blocks][];
+        this.generations = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            table[b] = new long[wordWidth * chunk(length, blockLength, b)];
+        }
+        log.info("initialize Versioned Memory {}x{} in {} blocks of {} words", wordCount, wordWidth, blocks, blockLength << 6);
+    }
+
+    /**
+     * Копирует содержимое другой памяти.
+     */
+    public VersionedAssociativeMemory(AssociativeMemory memory) {
+        this(memory.wordCount(), memory.wordWidth());
+        long[] slice = new long[BitSlices.length(wordCount)];
+        for (int k = 0; k < wordWidth; k++) {
+            memory.getSlice(k, slice);
+            setSlice(k, slice);
+        }
+        version.set(0);
+    }
+
+    /**
+     * Неизменяемая версия памяти.
+     */
+    public static final class Snapshot implements AssociativeMemory {
+        private final VersionedAssociativeMemory owner;
+        private final long[][] table;
+        private final long version;
+
+        private Snapshot(VersionedAssociativeMemory owner, long[][] table, long version) {
+            this.owner = owner;
+            this.table = table;
+            this.version = version;
+        }
+
+        /**
+         * Номер версии: количество изменений памяти до снимка.
+         */
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public Boolean get(int i, int j) {
+            return owner.read(table, Math.floorMod(i - j, owner.wordWidth), owner.checkAddress(j));
+        }
+
+        @Override
+        public void set(int i, int j, Boolean bit) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+
+        @Override
+        public int size() {
+            return owner.wordCount;
+        }
+
+        @Override
+        public int wordCount() {
+            return owner.wordCount;
+        }
+
+        @Override
+        public int wordWidth() {
+            return owner.wordWidth;
+        }
+
+        @Override
+        public long getWord(int address) {
+            return owner.readWord(table, owner.checkAddress(address));
+        }
+
+        @Override
+        public void setWord(int address, long word) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+
+        @Override
+        public void getSlice(int bit, long[] target, int from, int to) {
+            owner.readSlice(table, bit, target, from, to);
+        }
+
+        @Override
+        public void setSlice(int bit, long[] slice, int from, int to) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{version=" + version + ", " + owner.wordCount + "x" + owner.wordWidth + '}';
+        }
+    }
+
+    /**
+     * Снимок текущего состояния за O(1). Следующие записи не видны в снимке.
+     */
+    public synchronized Snapshot snapshot() {
+        tableShared = true;
+        generation++;
+        return new Snapshot(this, table, version.get());
+    }
+
+    /**
+     * Возвращает память к состоянию снимка. Снимок остаётся действительным;
+     * изменения, сделанные после него, отбрасываются (снимки, сделанные позже, тоже остаются действительными).
+     */
+    public synchronized void rollback(Snapshot snapshot) {
+        checkOwner(snapshot);
+        log.debug("rollback Versioned Memory {} -> {}", version, snapshot.version);
+        table = snapshot.table;
+        tableShared = true;
+        generation++;
+        version.set(snapshot.version);
+    }
+
+    /**
+     * Блоки, изменённые после последнего снимка или отката.
+     */
+    public synchronized BitSet dirtyBlocks() {
+        BitSet dirty = new BitSet(table.length);
+        for (int b = 0; b < table.length; b++) {
+            if (generations[b] == generation) dirty.set(b);
+        }
+        return dirty;
+    }
+
+    /**
+     * Блоки, в которых текущее состояние отличается от снимка.
+     */
+    public BitSet diff(Snapshot snapshot) {
+        checkOwner(snapshot);
+        return diff(snapshot.table, table);
+    }
+
+    /**
+     * Блоки, в которых различаются две версии одной памяти. Блоки с общей ссылкой
+     * не сравниваются, скопированные после снимка - сравниваются по содержимому.
+     */
+    public BitSet diff(Snapshot first, Snapshot second) {
+        checkOwner(first);
+        checkOwner(second);
+        return diff(first.table, second.table);
+    }
+
+    /**
+     * Адреса слов (столбцов), входящих в блоки: помеченная маска для сохранения или сравнения
+     * только изменённых столбцов.
+     */
+    public long[] columns(BitSet blocks) {
+        long[] columns = new long[BitSlices.length(wordCount)];
+        for (int b = blocks.nextSetBit(0); b >= 0 && b < table.length; b = blocks.nextSetBit(b + 1)) {
+            int from = b * blockLength;
+            Arrays.fill(columns, from, Math.min(columns.length, from + blockLength), -1L);
+        }
+        if (columns.length > 0) columns[columns.length - 1] &= BitSlices.tailMask(wordCount);
+        return columns;
+    }
+
+    public int blocks() {
+        return table.length;
+    }
+
+    /**
+     * Количество слов в блоке (последний блок может быть короче).
+     */
+    public int blockWords() {
+        return blockLength << 6;
+    }
+
+    /**
+     * Количество изменений памяти (записей слова, бита или диапазона среза).
+     */
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public Boolean get(int i, int j) {
+        return read(table, bitOf(i, j), checkAddress(j));
+    }
+
+    @Override
+    public void set(int i, int j, Boolean bit) {
+        int address = checkAddress(j);
+        int index = address >>> 6;
+        int b = index / blockLength;
+        long[] block = writable(b);
+        int position = bitOf(i, j) * chunk(b) + index - b * blockLength;
+        if (Boolean.TRUE.equals(bit)) block[position] |= 1L << address;
+        else block[position] &= ~(1L << address);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int wordWidth() {
+        return wordWidth;
+    }
+
+    @Override
+    public long getWord(int address) {
+        return readWord(table, checkAddress(address));
+    }
+
+    @Override
+    public void setWord(int address, long word) {
+        int index = checkAddress(address) >>> 6;
+        int b = index / blockLength;
+        long[] block = writable(b);
+        int chunk = chunk(b);
+        int position = index - b * blockLength;
+        long bit = 1L << address;
+        for (int k = 0; k < wordWidth; k++, position += chunk) {
+            if (((word >>> (wordWidth - 1 - k)) & 1) == 1) block[position] |= bit;
+            else block[position] &= ~bit;
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void getSlice(int bit, long[] target, int from, int to) {
+        readSlice(table, bit, target, from, to);
+    }
+
+    @Override
+    public void setSlice(int bit, long[] slice, int from, int to) {
+        int length = BitSlices.length(wordCount);
+        while (from < to) {
+            int b = from / blockLength;
+            int start = b * blockLength;
+            int end = Math.min(to, start + blockLength);
+            long[] block = writable(b);
+            int chunk = chunk(b);
+            System.arraycopy(slice, from, block, bit * chunk + from - start, end - from);
+            if (end == length) block[bit * chunk + end - 1 - start] &= BitSlices.tailMask(wordCount);
+            from = end;
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Блок, который можно изменять: общий со снимками блок (и таблица) сначала копируется.
+     * Синхронизирован: потоки, пишущие в один блок (границы шардов не выровнены по блокам),
+     * должны получить одну и ту же копию, иначе записи в лишнюю копию теряются.
+     */
+    private synchronized long[] writable(int b) {
+        long[][] current = table;
+        if (generations[b] == generation) return current[b];
+        if (tableShared) {
+            current = current.clone();
+            tableShared = false;
+        }
+        long[] block = current[b].clone();
+        current[b] = block;
+        generations[b] = generation;
+        table = current;
+        return block;
+    }
+
+    private boolean read(long[][] table, int bit, int address) {
+        int index = address >>> 6;
+        int b = index / blockLength;
+        return (table[b][bit * chunk(b) + index - b * blockLength] & (1L << address)) != 0;
+    }
+
+    private long readWord(long[][] table, int address) {
+        int index = address >>> 6;
+        int b = index / blockLength;
+        long[] block = table[b];
+        int chunk = chunk(b);
+        long bit = 1L << address;
+        long word = 0;
+        for (int position = index - b * blockLength; position < block.length; position += chunk) {
+            word <<= 1;
+            if ((block[position] & bit) != 0) word |= 1;
+        }
+        return word;
+    }
+
+    private void readSlice(long[][] table, int bit, long[] target, int from, int to) {
+        while (from < to) {
+            int b = from / blockLength;
+            int start = b * blockLength;
+            int end = Math.min(to, start + blockLength);
+            System.arraycopy(table[b], bit * chunk(b) + from - start, target, from, end - from);
+            from = end;
+        }
+    }
+
+    private BitSet diff(long[][] first, long[][] second) {
+        BitSet changed = new BitSet(first.length);
+        for (int b = 0; b < first.length; b++) {
+            if (first[b] != second[b] && !Arrays.equals(first[b], second[b])) changed.set(b);
+        }
+        return changed;
+    }
+
+    private int chunk(int b) {
+        return chunk(BitSlices.length(wordCount), blockLength, b);
+    }
+
+    private static int chunk(int length, int blockLength, int b) {
+        return Math.min(blockLength, length - b * blockLength);
+    }
+
+    private int bitOf(int i, int j) {
+        return Math.floorMod(i - j, wordWidth);
+    }
+
+    private int checkAddress(int address) {
+        if (address < 0 || address >= wordCount)
+            throw new IndexOutOfBoundsException("address " + address + " out of [0, " + wordCount + ")");
+        return address;
+    }
+
+    private void checkOwner(Snapshot snapshot) {
+        if (snapshot.owner != this)
+            throw new IllegalArgumentException(snapshot + " belongs to another memory");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < wordWidth; i++) {
+            Boolean[] bits = new Boolean[wordCount];
+            for (int j = 0; j < wordCount; j++) {
+                bits[j] = get(i, j);
+            }
+            output.append(String.format("[%#x] ", i)).append(toDig(bits)).append('\n');
+        }
+        return "Memory{\n" + output + '}';
+    }
+}
@@ -0,0 +1,19 @@
+package org.glebchanskiy.associativeprocessor.cache;
+
+/**
+ * Счётчики кэша поиска. invalidations - найденные, но устаревшие записи (входят и в misses),
+ * evictions - записи, вытесненные по лимиту памяти.
+ */
+public record CacheStats(long hits, long misses, long invalidations, long evictions, int entries, long bytes) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d invalidations, %d evictions, %d entries, %.1f KB",
+                hits, misses, hitRate() * 100, invalidations, evictions, entries, bytes / 1024.0);
+    }
+}
@@ -0,0 +1,67 @@
+package org.glebchanskiy.associativeprocessor.cache;
+
+import org.glebchanskiy.associativeprocessor.associativememory.TrackingAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.search.MatchSearch;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.RangeSearch;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+
+import java.util.List;
+
+/**
+ * Поиск по образцу и по интервалам через кэш: повторный запрос по неизменённым срезам
+ * возвращается без прохода по памяти. Каждый вызов получает свой вектор тегов (см. SearchCache).
+ */
+public class CachingSearch {
+    public static final long DEFAULT_CACHE_BYTES = 32L << 20;
+
+    private final TrackingAssociativeMemory memory;
+    private final MatchSearch matchSearch;
+    private final RangeSearch rangeSearch;
+    private final SearchCache cache;
+
+    public CachingSearch(TrackingAssociativeMemory memory) {
+        this(memory, ShardedExecutor.sequential(), DEFAULT_CACHE_BYTES);
+    }
+
+    public CachingSearch(TrackingAssociativeMemory memory, ShardedExecutor executor, long cacheBytes) {
+        this.memory = memory;
+        this.matchSearch = new MatchSearch(memory, executor);
+        this.rangeSearch = new RangeSearch(memory, executor);
+        this.cache = new SearchCache(memory, cacheBytes);
+    }
+
+    public TagVector match(long comparand, long mask) {
+        SearchQuery query = new SearchQuery.Match(comparand, mask);
+        TagVector result = cache.get(query);
+        if (result != null) return result;
+        long[] versions = cache.versions(query);
+        result = matchSearch.search(comparand, mask);
+        cache.put(query, versions, result);
+        return result;
+    }
+
+    public TagVector range(Field field, Range... ranges) {
+        return range(field, List.of(ranges));
+    }
+
+    public TagVector range(Field field, List<Range> ranges) {
+        SearchQuery query = new SearchQuery.RangeQuery(field, ranges);
+        TagVector result = cache.get(query);
+        if (result != null) return result;
+        long[] versions = cache.versions(query);
+        result = rangeSearch.search(field, ranges);
+        cache.put(query, versions, result);
+        return result;
+    }
+
+    public SearchCache cache() {
+        return cache;
+    }
+
+    public TrackingAssociativeMemory memory() {
+        return memory;
+    }
+}
@@ -0,0 +1,115 @@
+package org.glebchanskiy.associativeprocessor.cache;
+
+import org.glebchanskiy.associativeprocessor.associativememory.TrackingAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш результатов поиска с проверкой по версиям срезов.
+ * Запись хранит версии срезов, от которых зависит запрос, прочитанные до поиска; запись
+ * действительна, пока ни один из этих срезов не изменялся. Проверка - O(число срезов запроса),
+ * не зависит от количества слов.
+ * Записи вытесняются в порядке давности использования (LRU), пока суммарный объём векторов
+ * тегов и служебных данных превышает maxBytes.
+ * Запись хранит свою копию вектора тегов, а каждое попадание возвращает новую копию,
+ * поэтому вызывающий может изменять результат (pollFirst, words()), не портя кэш.
+ */
+public class SearchCache {
+    /**
+     * Оценка служебного объёма записи: ключ, узел LinkedHashMap, заголовки массивов.
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final TrackingAssociativeMemory memory;
+    private final long maxBytes;
+    private final LinkedHashMap<SearchQuery, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    private record Entry(TagVector result, int[] slices, long[] versions, long bytes) {
+    }
+
+    public SearchCache(TrackingAssociativeMemory memory, long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes must be non-negative: " + maxBytes);
+        this.memory = memory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Действительный результат запроса или null.
+     */
+    public synchronized TagVector get(SearchQuery query) {
+        Entry entry = entries.get(query);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        for (int i = 0; i < entry.slices().length; i++) {
+            if (memory.version(entry.slices()[i]) != entry.versions()[i]) {
+                entries.remove(query);
+                bytes -= entry.bytes();
+                invalidations++;
+                misses++;
+                return null;
+            }
+        }
+        hits++;
+        return entry.result().copy();
+    }
+
+    /**
+     * Версии срезов запроса; читаются до поиска и передаются в put вместе с результатом.
+     */
+    public long[] versions(SearchQuery query) {
+        int[] slices = query.slices(memory.wordWidth());
+        long[] versions = new long[slices.length];
+        for (int i = 0; i < slices.length; i++) {
+            versions[i] = memory.version(slices[i]);
+        }
+        return versions;
+    }
+
+    public synchronized void put(SearchQuery query, long[] versions, TagVector result) {
+        int[] slices = query.slices(memory.wordWidth());
+        if (versions.length != slices.length)
+            throw new IllegalArgumentException(versions.length + " versions for " + slices.length + " slices");
+        long size = ENTRY_OVERHEAD + 8L * result.words().length + 12L * slices.length;
+        if (size > maxBytes) return;
+        Entry previous = entries.put(query, new Entry(result.copy(), slices, versions, size));
+        if (previous != null) bytes -= previous.bytes();
+        bytes += size;
+        Iterator<Map.Entry<SearchQuery, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized CacheStats stats(boolean reset) {
+        CacheStats stats = new CacheStats(hits, misses, invalidations, evictions, entries.size(), bytes);
+        if (reset) {
+            hits = 0;
+            misses = 0;
+            invalidations = 0;
+            evictions = 0;
+        }
+        return stats;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+}
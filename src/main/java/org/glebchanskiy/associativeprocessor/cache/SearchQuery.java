@@ -0,0 +1,53 @@
+package org.glebchanskiy.associativeprocessor.cache;
+
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.search.Range;
+
+import java.util.List;
+
+/**
+ * Ключ кэша поиска. Результат запроса зависит только от срезов slices(wordWidth).
+ */
+public sealed interface SearchQuery {
+
+    int[] slices(int wordWidth);
+
+    /**
+     * Поиск по образцу: разряды образца вне маски не влияют на результат и обнуляются.
+     */
+    record Match(long comparand, long mask) implements SearchQuery {
+
+        public Match {
+            comparand &= mask;
+        }
+
+        @Override
+        public int[] slices(int wordWidth) {
+            int[] slices = new int[Long.bitCount(mask & (wordWidth == Long.SIZE ? -1L : (1L << wordWidth) - 1))];
+            int count = 0;
+            for (int k = 0; k < wordWidth; k++) {
+                if (((mask >>> (wordWidth - 1 - k)) & 1) == 1) slices[count++] = k;
+            }
+            return slices;
+        }
+    }
+
+    /**
+     * Поиск слов, поле которых попадает хотя бы в один из интервалов.
+     */
+    record RangeQuery(Field field, List<Range> ranges) implements SearchQuery {
+
+        public RangeQuery {
+            ranges = List.copyOf(ranges);
+        }
+
+        @Override
+        public int[] slices(int wordWidth) {
+            int[] slices = new int[field.width()];
+            for (int bit = 0; bit < slices.length; bit++) {
+                slices[bit] = field.slice(bit);
+            }
+            return slices;
+        }
+    }
+}
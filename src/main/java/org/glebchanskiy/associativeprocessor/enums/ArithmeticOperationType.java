@@ -1,5 +1,5 @@
 package org.glebchanskiy.associativeprocessor.enums;
 
 public enum ArithmeticOperationType {
-    SUM_AJ_BJ_MASKED
+    SUM_AJ_BJ_MASKED, SUB_AJ_BJ_MASKED, MUL_AJ_BJ_MASKED
 }
@@ -1,5 +1,54 @@
 package org.glebchanskiy.associativeprocessor.enums;
 
+/**
+ * Все 16 логических функций двух аргументов.
+ * Номер функции - таблица истинности f(0,0) f(0,1) f(1,0) f(1,1), записанная от старшего бита.
+ */
 public enum LogicOperationType {
-    FUNC_2, FUNC_7, FUNC_8, FUNC_13
+    FUNC_0,  // 0                  | Константа 0
+    FUNC_1,  // x1*x2              | Конъюнкция (И)
+    FUNC_2,  // x1*!x2             | Запрет 1-го аргумента (НЕТ)
+    FUNC_3,  // x1                 | Повторение 1-го аргумента
+    FUNC_4,  // !x1*x2             | Запрет 2-го аргумента
+    FUNC_5,  // x2                 | Повторение 2-го аргумента
+    FUNC_6,  // x1*!x2+!x1*x2      | Неравнозначность (исключающее ИЛИ)
+    FUNC_7,  // x1+x2              | Дизъюнкция (ИЛИ)
+    FUNC_8,  // !(x1+x2)           | Операция Пирса (ИЛИ-НЕ)
+    FUNC_9,  // x1*x2+!x1*!x2      | Эквивалентность
+    FUNC_10, // !x2                | Отрицание 2-го аргумента
+    FUNC_11, // x1+!x2             | Импликация от 2-го аргумента
+    FUNC_12, // !x1                | Отрицание 1-го аргумента
+    FUNC_13, // !x1+x2             | Импликация от 1-го аргумента
+    FUNC_14, // !(x1*x2)           | Операция Шеффера (И-НЕ)
+    FUNC_15; // 1                  | Константа 1
+
+    private final long whenBothZero = (ordinal() & 0b1000) != 0 ? -1L : 0L;
+    private final long whenOnlySecond = (ordinal() & 0b0100) != 0 ? -1L : 0L;
+    private final long whenOnlyFirst = (ordinal() & 0b0010) != 0 ? -1L : 0L;
+    private final long whenBoth = (ordinal() & 0b0001) != 0 ? -1L : 0L;
+
+    /**
+     * Вычисляет функцию сразу для 64 пар разрядов.
+     */
+    public long apply(long x1, long x2) {
+        return (whenBothZero & ~(x1 | x2))
+                | (whenOnlySecond & ~x1 & x2)
+                | (whenOnlyFirst & x1 & ~x2)
+                | (whenBoth & x1 & x2);
+    }
+
+    /**
+     * result[i] = f(x1[i], x2[i]) для элементов from..to-1.
+     */
+    public void apply(long[] x1, long[] x2, long[] result, int from, int to) {
+        long m0 = whenBothZero;
+        long m1 = whenOnlySecond;
+        long m2 = whenOnlyFirst;
+        long m3 = whenBoth;
+        for (int i = from; i < to; i++) {
+            long a = x1[i];
+            long b = x2[i];
+            result[i] = (m0 & ~(a | b)) | (m1 & ~a & b) | (m2 & a & ~b) | (m3 & a & b);
+        }
+    }
 }
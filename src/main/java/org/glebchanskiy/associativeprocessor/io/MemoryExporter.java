@@ -0,0 +1,147 @@
+package org.glebchanskiy.associativeprocessor.io;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordSchema;
+import org.glebchanskiy.associativeprocessor.server.QueryServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Потоковая выгрузка слов памяти в канал NIO. Память читается блоками по blockWords слов
+ * через разрядные срезы, текст кодируется прямо в буфер канала (ASCII) без промежуточных строк,
+ * поэтому расход памяти не зависит от количества слов (кроме буфера одного среза).
+ * Результат читается обратно MemoryImporter с тем же форматом и схемой.
+ */
+public class MemoryExporter {
+    private static final Logger log = LoggerFactory.getLogger(MemoryExporter.class);
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+    private final AssociativeMemory memory;
+    private final Field[] fields;
+    private final int blockWords;
+    private final byte[] digits = new byte[20];
+
+    public MemoryExporter(AssociativeMemory memory) {
+        this(memory, null);
+    }
+
+    /**
+     * schema - поля, которые выгружаются столбцами CSV вместо value (null - слово целиком).
+     */
+    public MemoryExporter(AssociativeMemory memory, WordSchema schema) {
+        this(memory, schema, MemoryImporter.DEFAULT_BLOCK_WORDS);
+    }
+
+    public MemoryExporter(AssociativeMemory memory, WordSchema schema, int blockWords) {
+        if (schema != null) schema.checkFits(memory.wordWidth());
+        this.memory = memory;
+        this.fields = schema == null ? new Field[0] : schema.fields().toArray(Field[]::new);
+        this.blockWords = blockWords;
+    }
+
+    public long write(WritableByteChannel channel, MemoryFormat format) throws IOException {
+        return write(channel, format, 0, memory.wordCount());
+    }
+
+    /**
+     * Выгружает слова from .. to - 1 и возвращает количество записанных байт.
+     * Столбец address в CSV - номер строки (от 0), так что диапазон загружается обратно с адреса 0.
+     */
+    public long write(WritableByteChannel channel, MemoryFormat format, int from, int to) throws IOException {
+        if (from < 0 || to > memory.wordCount() || from > to)
+            throw new IllegalArgumentException("range [" + from + ", " + to + ") out of [0, " + memory.wordCount() + ")");
+        int width = memory.wordWidth();
+        int maxLine = 22 * (fields.length + 2);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, 2 * maxLine));
+        long written = 0;
+        if (format == MemoryFormat.CSV) {
+            StringBuilder header = new StringBuilder("address");
+            if (fields.length == 0) header.append(",value");
+            for (Field field : fields) {
+                header.append(',').append(field.name());
+            }
+            buffer.put(header.append('\n').toString().getBytes());
+        }
+        WordBlocks blocks = new WordBlocks(memory, blockWords);
+        long[] words = new long[blockWords];
+        int bytes = (width + 7) >>> 3;
+        int hexDigits = (width + 3) >>> 2;
+        for (int start = from & ~63; start < to; start += blockWords) {
+            int end = Math.min(to, start + blockWords);
+            blocks.read(start, end, words);
+            for (int address = Math.max(from, start); address < end; address++) {
+                if (buffer.remaining() < maxLine) written += flush(channel, buffer);
+                long word = words[address - start];
+                switch (format) {
+                    case BINARY -> {
+                        for (int b = bytes - 1; b >= 0; b--) {
+                            buffer.put((byte) (word >>> (b << 3)));
+                        }
+                    }
+                    case HEX -> {
+                        for (int d = hexDigits - 1; d >= 0; d--) {
+                            buffer.put(HEX_DIGITS[(int) (word >>> (d << 2)) & 15]);
+                        }
+                        buffer.put((byte) '\n');
+                    }
+                    case CSV -> {
+                        putDecimal(buffer, address - from);
+                        if (fields.length == 0) {
+                            buffer.put((byte) ',');
+                            putDecimal(buffer, word);
+                        }
+                        for (Field field : fields) {
+                            buffer.put((byte) ',');
+                            putDecimal(buffer, field.valueOf(word, width));
+                        }
+                        buffer.put((byte) '\n');
+                    }
+                }
+            }
+        }
+        written += flush(channel, buffer);
+        log.debug("exported {} words ({}, {} bytes)", to - from, format, written);
+        return written;
+    }
+
+    private void putDecimal(ByteBuffer buffer, long value) {
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + Long.remainderUnsigned(value, 10));
+            value = Long.divideUnsigned(value, 10);
+        } while (value != 0);
+        buffer.put(digits, i, digits.length - i);
+    }
+
+    private static int flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    /**
+     * Аргументы: формат [количество слов] [файл]. Выгружает 16-битные слова со случайными данными
+     * (в CSV - поля WordSchema.DEFAULT) в файл или в стандартный вывод.
+     */
+    public static void main(String... args) throws IOException {
+        MemoryFormat format = MemoryFormat.parse(args.length > 0 ? args[0] : "hex");
+        int words = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20;
+        AssociativeMemory memory = QueryServer.demoMemory(words);
+        try (OutputStream output = args.length > 2 ? new FileOutputStream(args[2]) : System.out;
+             WritableByteChannel channel = Channels.newChannel(output)) {
+            new MemoryExporter(memory, WordSchema.DEFAULT).write(channel, format);
+        }
+    }
+}
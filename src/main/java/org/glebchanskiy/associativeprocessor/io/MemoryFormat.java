@@ -0,0 +1,19 @@
+package org.glebchanskiy.associativeprocessor.io;
+
+/**
+ * Формат потока слов памяти (по порядку адресов).
+ * BINARY - без заголовка, каждое слово в (wordWidth + 7) / 8 байтах, старший байт первым;
+ * CSV - строка заголовка (address, value или имена полей схемы), далее строка на слово, числа десятичные;
+ * HEX - строка на слово, (wordWidth + 3) / 4 шестнадцатеричных цифр.
+ * В текстовых форматах пустые строки и строки, начинающиеся с '#', пропускаются при чтении.
+ */
+public enum MemoryFormat {
+    BINARY, CSV, HEX;
+
+    public static MemoryFormat parse(String name) {
+        for (MemoryFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        throw new IllegalArgumentException("unknown format " + name + ", expected binary, csv or hex");
+    }
+}
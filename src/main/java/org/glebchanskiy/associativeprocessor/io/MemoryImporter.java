@@ -0,0 +1,279 @@
+package org.glebchanskiy.associativeprocessor.io;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Потоковая загрузка слов в память с адреса 0 из канала NIO.
+ * Слова накапливаются блоками по blockWords и записываются в память по разрядным срезам,
+ * поэтому кроме памяти используются только буфер канала, блок и буфер одного среза -
+ * весь массив слов никогда не хранится целиком.
+ * Если загружено меньше слов, чем в памяти, остальные слова не изменяются.
+ * В CSV-заголовке допустимы столбцы address (адреса должны идти подряд с 0), value
+ * (слово целиком) и имена полей схемы (значение поля записывается поверх value).
+ */
+public class MemoryImporter {
+    private static final Logger log = LoggerFactory.getLogger(MemoryImporter.class);
+    public static final int DEFAULT_BLOCK_WORDS = 1 << 16;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int ADDRESS = -1;
+    private static final int VALUE = -2;
+    private final AssociativeMemory memory;
+    private final WordSchema schema;
+    private final Field[] fields;
+    private final int blockWords;
+
+    public MemoryImporter(AssociativeMemory memory) {
+        this(memory, null);
+    }
+
+    /**
+     * schema - поля, которые можно указывать столбцами CSV (null - только address и value).
+     */
+    public MemoryImporter(AssociativeMemory memory, WordSchema schema) {
+        this(memory, schema, DEFAULT_BLOCK_WORDS);
+    }
+
+    public MemoryImporter(AssociativeMemory memory, WordSchema schema, int blockWords) {
+        if (schema != null) schema.checkFits(memory.wordWidth());
+        this.memory = memory;
+        this.schema = schema;
+        this.fields = schema == null ? new Field[0] : schema.fields().toArray(Field[]::new);
+        this.blockWords = blockWords;
+    }
+
+    /**
+     * Читает канал до конца и возвращает количество загруженных слов.
+     * Слово, не помещающееся в wordWidth разрядов, или слов больше, чем в памяти, - IllegalArgumentException.
+     */
+    public int read(ReadableByteChannel channel, MemoryFormat format) throws IOException {
+        Sink sink = new Sink();
+        if (format == MemoryFormat.BINARY) readBinary(channel, sink);
+        else readText(channel, format, sink);
+        sink.finish();
+        log.debug("imported {} words ({})", sink.count(), format);
+        return sink.count();
+    }
+
+    private void readBinary(ReadableByteChannel channel, Sink sink) throws IOException {
+        int bytes = (memory.wordWidth() + 7) >>> 3;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        while (true) {
+            int read = channel.read(buffer);
+            buffer.flip();
+            while (buffer.remaining() >= bytes) {
+                long word = 0;
+                for (int b = 0; b < bytes; b++) {
+                    word = (word << 8) | (buffer.get() & 0xFF);
+                }
+                sink.add(word);
+            }
+            buffer.compact();
+            if (read < 0) {
+                if (buffer.position() != 0)
+                    throw new IllegalArgumentException("truncated word at address " + sink.count() + ": " + buffer.position() + " of " + bytes + " bytes");
+                return;
+            }
+        }
+    }
+
+    private void readText(ReadableByteChannel channel, MemoryFormat format, Sink sink) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        Lines lines = new Lines(format, sink);
+        while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                lines.accept(buffer.get());
+            }
+            buffer.clear();
+        }
+        lines.finish();
+    }
+
+    /**
+     * Разбор текстовых строк прямо из байтов, без строки на каждое слово.
+     */
+    private final class Lines {
+        private final MemoryFormat format;
+        private final Sink sink;
+        private byte[] line = new byte[128];
+        private int length;
+        private int number;
+        private int position;
+        private int[] columns;
+        private long[] values;
+
+        Lines(MemoryFormat format, Sink sink) {
+            this.format = format;
+            this.sink = sink;
+        }
+
+        void accept(byte b) {
+            if (b == '\n') {
+                line();
+                length = 0;
+            } else if (b != '\r') {
+                if (length == line.length) line = Arrays.copyOf(line, length * 2);
+                line[length++] = b;
+            }
+        }
+
+        void finish() {
+            if (length > 0) line();
+        }
+
+        private void line() {
+            number++;
+            position = 0;
+            skipSpaces();
+            if (position == length || line[position] == '#') return;
+            try {
+                if (format == MemoryFormat.HEX) {
+                    long word = number(16);
+                    skipSpaces();
+                    expectEnd();
+                    sink.add(word);
+                } else if (columns == null) {
+                    header(new String(line, 0, length, StandardCharsets.US_ASCII).trim());
+                } else {
+                    sink.add(row());
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + number + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Номер поля схемы для каждого столбца или ADDRESS / VALUE.
+         */
+        private void header(String text) {
+            String[] names = text.split(",");
+            columns = new int[names.length];
+            values = new long[names.length];
+            for (int c = 0; c < names.length; c++) {
+                String name = names[c].trim();
+                if (name.equalsIgnoreCase("address")) columns[c] = ADDRESS;
+                else if (name.equalsIgnoreCase("value")) columns[c] = VALUE;
+                else if (schema != null && schema.contains(name)) columns[c] = Arrays.asList(fields).indexOf(schema.field(name));
+                else throw new IllegalArgumentException("unknown column " + name);
+            }
+        }
+
+        private long row() {
+            for (int c = 0; c < columns.length; c++) {
+                if (c > 0) {
+                    if (position == length || line[position] != ',')
+                        throw new IllegalArgumentException("expected " + columns.length + " columns, got " + c);
+                    position++;
+                    skipSpaces();
+                }
+                values[c] = number(10);
+                skipSpaces();
+            }
+            expectEnd();
+            int address = sink.count();
+            long word = 0;
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c] == ADDRESS && values[c] != address)
+                    throw new IllegalArgumentException("expected address " + address + ", got " + Long.toUnsignedString(values[c]));
+                if (columns[c] == VALUE) word |= values[c];
+            }
+            int width = memory.wordWidth();
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c] < 0) continue;
+                Field field = fields[columns[c]];
+                long mask = field.width() == Long.SIZE ? -1L : (1L << field.width()) - 1;
+                if ((values[c] & ~mask) != 0)
+                    throw new IllegalArgumentException("value " + Long.toUnsignedString(values[c]) + " does not fit into " + field);
+                int shift = width - field.end();
+                word = (word & ~(mask << shift)) | (values[c] << shift);
+            }
+            return word;
+        }
+
+        /**
+         * Число без знака (до 2^64 - 1) в системе счисления radix.
+         */
+        private long number(int radix) {
+            int start = position;
+            long value = 0;
+            long limit = Long.divideUnsigned(-1L, radix);
+            while (position < length) {
+                int digit = Character.digit(line[position], radix);
+                if (digit < 0) break;
+                if (Long.compareUnsigned(value, limit) > 0 || Long.compareUnsigned(value * radix + digit, value * radix) < 0)
+                    throw new IllegalArgumentException("number out of range at column " + (start + 1));
+                value = value * radix + digit;
+                position++;
+            }
+            if (position == start)
+                throw new IllegalArgumentException("expected number at column " + (start + 1));
+            return value;
+        }
+
+        private void skipSpaces() {
+            while (position < length && (line[position] == ' ' || line[position] == '\t')) {
+                position++;
+            }
+        }
+
+        private void expectEnd() {
+            if (position != length)
+                throw new IllegalArgumentException("unexpected '" + (char) line[position] + "' at column " + (position + 1));
+        }
+    }
+
+    /**
+     * Блок слов, который записывается в память, когда заполнен.
+     */
+    private final class Sink {
+        private final WordBlocks blocks = new WordBlocks(memory, blockWords);
+        private final long[] words = new long[blockWords];
+        private final int width = memory.wordWidth();
+        private int base;
+        private int filled;
+
+        void add(long word) {
+            if (base + filled == memory.wordCount())
+                throw new IllegalArgumentException("more than " + memory.wordCount() + " words");
+            if (width < Long.SIZE && (word >>> width) != 0)
+                throw new IllegalArgumentException("word " + Long.toUnsignedString(word) + " at address " + (base + filled) + " does not fit into " + width + " bits");
+            words[filled++] = word;
+            if (filled == blockWords) {
+                blocks.write(base, base + filled, words);
+                base += filled;
+                filled = 0;
+            }
+        }
+
+        /**
+         * Последняя неполная группа из 64 слов дополняется словами памяти, чтобы они не обнулились.
+         */
+        void finish() {
+            if (filled == 0) return;
+            int end = base + filled;
+            if ((end & 63) != 0 && end < memory.wordCount()) {
+                int groupStart = end & ~63;
+                int groupEnd = Math.min(groupStart + Long.SIZE, memory.wordCount());
+                long[] group = new long[Long.SIZE];
+                blocks.read(groupStart, groupEnd, group);
+                System.arraycopy(group, end - groupStart, words, end - base, groupEnd - end);
+                end = groupEnd;
+            }
+            blocks.write(base, end, words);
+        }
+
+        int count() {
+            return base + filled;
+        }
+    }
+}
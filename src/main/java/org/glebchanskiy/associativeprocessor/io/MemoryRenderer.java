@@ -0,0 +1,81 @@
+package org.glebchanskiy.associativeprocessor.io;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Постраничный вывод нормального отображения памяти (строка на слово:
+ * [адрес] разряды [значение без знака]) в Writer.
+ * Слова читаются блоками по разрядным срезам, текст передаётся в Writer порциями,
+ * поэтому можно просматривать любой диапазон памяти из миллионов слов, не собирая общую строку.
+ */
+public class MemoryRenderer {
+    public static final int DEFAULT_PAGE_SIZE = 1 << 10;
+    private static final int FLUSH_CHARS = 1 << 13;
+    private final AssociativeMemory memory;
+    private final int blockWords;
+    private WordBlocks blocks;
+    private long[] words;
+
+    public MemoryRenderer(AssociativeMemory memory) {
+        this(memory, MemoryImporter.DEFAULT_BLOCK_WORDS);
+    }
+
+    public MemoryRenderer(AssociativeMemory memory, int blockWords) {
+        this.memory = memory;
+        this.blockWords = blockWords;
+    }
+
+    public int pages(int pageSize) {
+        return (memory.wordCount() + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Страница page (от 0) по pageSize слов.
+     */
+    public void renderPage(Writer out, int page, int pageSize) throws IOException {
+        if (pageSize < 1 || page < 0 || page >= Math.max(1, pages(pageSize)))
+            throw new IllegalArgumentException("page " + page + " out of [0, " + pages(pageSize) + ") for page size " + pageSize);
+        long from = (long) page * pageSize;
+        render(out, (int) from, (int) Math.min(memory.wordCount(), from + pageSize));
+    }
+
+    /**
+     * Слова from .. to - 1.
+     */
+    public void render(Writer out, int from, int to) throws IOException {
+        if (from < 0 || to > memory.wordCount() || from > to)
+            throw new IllegalArgumentException("range [" + from + ", " + to + ") out of [0, " + memory.wordCount() + ")");
+        if (blocks == null) {
+            blocks = new WordBlocks(memory, blockWords);
+            words = new long[blockWords];
+        }
+        int width = memory.wordWidth();
+        StringBuilder output = new StringBuilder(FLUSH_CHARS + 2 * width + 40);
+        for (int start = from & ~63; start < to; start += blockWords) {
+            int end = Math.min(to, start + blockWords);
+            blocks.read(start, end, words);
+            for (int address = Math.max(from, start); address < end; address++) {
+                appendLine(output, address, words[address - start], width);
+                if (output.length() >= FLUSH_CHARS) {
+                    out.append(output);
+                    output.setLength(0);
+                }
+            }
+        }
+        out.append(output);
+    }
+
+    /**
+     * Строка нормального отображения слова: [0x1f] 0101010101010101 [21845]
+     */
+    public static StringBuilder appendLine(StringBuilder output, int address, long word, int width) {
+        output.append("[0x").append(Integer.toHexString(address)).append("] ");
+        for (int k = width - 1; k >= 0; k--) {
+            output.append(((word >>> k) & 1) == 1 ? '1' : '0');
+        }
+        return output.append(" [").append(Long.toUnsignedString(word)).append("]\n");
+    }
+}
@@ -0,0 +1,70 @@
+package org.glebchanskiy.associativeprocessor.io;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.Arrays;
+
+/**
+ * Перенос блоков слов между памятью и обычным массивом слов.
+ * Блок читается и пишется по разрядным срезам, группы из 64 слов транспонируются
+ * (BitSlices.transpose64). Кроме блока используется буфер одного среза: getSlice/setSlice
+ * адресуют массив теми же индексами, что и память.
+ */
+final class WordBlocks {
+    private final AssociativeMemory memory;
+    private final int width;
+    private final long[] slice;
+    private final long[][] slices;
+    private final long[] group = new long[Long.SIZE];
+
+    WordBlocks(AssociativeMemory memory, int blockWords) {
+        if (blockWords < Long.SIZE || (blockWords & 63) != 0)
+            throw new IllegalArgumentException("blockWords must be a positive multiple of 64: " + blockWords);
+        this.memory = memory;
+        this.width = memory.wordWidth();
+        this.slice = new long[BitSlices.length(memory.wordCount())];
+        this.slices = new long[width][blockWords >>> 6];
+    }
+
+    /**
+     * words[0 .. to - from) = слова from .. to - 1; from кратно 64, to - from не больше размера блока.
+     */
+    void read(int from, int to, long[] words) {
+        int first = from >>> 6;
+        int last = BitSlices.length(to);
+        for (int k = 0; k < width; k++) {
+            memory.getSlice(k, slice, first, last);
+            System.arraycopy(slice, first, slices[k], 0, last - first);
+        }
+        for (int g = 0; g < last - first; g++) {
+            for (int i = 0; i < Long.SIZE; i++) {
+                group[i] = i < width ? slices[width - 1 - i][g] : 0;
+            }
+            BitSlices.transpose64(group);
+            System.arraycopy(group, 0, words, g << 6, Math.min(Long.SIZE, to - from - (g << 6)));
+        }
+    }
+
+    /**
+     * Слова from .. to - 1 = words[0 .. to - from); from кратно 64. Если to не кратно 64 и не равно
+     * количеству слов, остальные слова последней группы обнуляются (их нужно прочитать заранее).
+     */
+    void write(int from, int to, long[] words) {
+        int first = from >>> 6;
+        int last = BitSlices.length(to);
+        for (int g = 0; g < last - first; g++) {
+            int count = Math.min(Long.SIZE, to - from - (g << 6));
+            System.arraycopy(words, g << 6, group, 0, count);
+            Arrays.fill(group, count, Long.SIZE, 0L);
+            BitSlices.transpose64(group);
+            for (int k = 0; k < width; k++) {
+                slices[k][g] = group[width - 1 - k];
+            }
+        }
+        for (int k = 0; k < width; k++) {
+            System.arraycopy(slices[k], 0, slice, first, last - first);
+            memory.setSlice(k, slice, first, last);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.glebchanskiy.associativeprocessor.kernel;
+
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+
+/**
+ * Внутренние циклы операций над упакованными срезами: чисто побитовая работа над long[].
+ * Реализация выбирается один раз при старте свойством -Dassociativeprocessor.kernels:
+ * <ul>
+ * <li>auto (по умолчанию) - Vector API, если модуль jdk.incubator.vector подключён
+ * (--add-modules jdk.incubator.vector) и процессор обрабатывает хотя бы 2 long за инструкцию,
+ * иначе скалярные циклы;</li>
+ * <li>vector - Vector API, при недоступности - скалярные циклы с предупреждением;</li>
+ * <li>scalar - скалярные циклы.</li>
+ * </ul>
+ * Все методы обрабатывают элементы from..to-1 и могут вызываться из разных шардов одновременно.
+ */
+public interface BitKernels {
+
+    /**
+     * result[i] = f(x1[i], x2[i]).
+     */
+    void logic(LogicOperationType operation, long[] x1, long[] x2, long[] result, int from, int to);
+
+    /**
+     * tags[i] &= slice[i] ^ expected: снимает теги слов, разряд которых не равен разряду образца
+     * (expected = 0 для разряда 1, -1 для разряда 0).
+     */
+    void match(long[] tags, long[] slice, long expected, int from, int to);
+
+    /**
+     * Один разряд поразрядно-последовательного сложения (вычитания при subtract):
+     * сумма записывается в result только в помеченных словах, carry - перенос (заём) в следующий разряд.
+     */
+    void addBit(long[] first, long[] second, long[] carry, long[] result, long[] tags, boolean subtract, int from, int to);
+
+    /**
+     * Один разряд сравнения двух полей (от старшего разряда к младшему): слова, ещё не решённые
+     * в greater/less, решаются в пользу поля, у которого в этом разряде 1.
+     */
+    void compareBit(long[] greater, long[] less, long[] x, long[] y, int from, int to);
+
+    /**
+     * Один разряд сравнения с границей для count элементов. greater/less - векторы решённых слов
+     * (индексы 0..count-1), slice - срез начиная с offset, boundBit - разряд границы.
+     */
+    void rangeBit(long[] greater, long[] less, long[] slice, int offset, int count, boolean boundBit);
+
+    /**
+     * result[offset + i] |= (lower[i] ^ lowerFlip) & (upper[i] ^ upperFlip).
+     */
+    void rangeCombine(long[] lower, long lowerFlip, long[] upper, long upperFlip, long[] result, int offset, int count);
+
+    String name();
+
+    /**
+     * Количество long, обрабатываемых одной операцией.
+     */
+    int lanes();
+
+    static BitKernels get() {
+        return BitKernelsHolder.DEFAULT;
+    }
+
+    static BitKernels scalar() {
+        return ScalarBitKernels.INSTANCE;
+    }
+
+    /**
+     * Реализация на Vector API. UnsupportedOperationException, если модуль jdk.incubator.vector не подключён.
+     */
+    static BitKernels vector() {
+        if (BitKernelsHolder.VECTOR == null)
+            throw new UnsupportedOperationException("jdk.incubator.vector is not available, run with --add-modules jdk.incubator.vector");
+        return BitKernelsHolder.VECTOR;
+    }
+}
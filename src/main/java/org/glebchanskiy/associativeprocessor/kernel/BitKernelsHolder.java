@@ -0,0 +1,46 @@
+package org.glebchanskiy.associativeprocessor.kernel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ленивый выбор реализации BitKernels: классы загружаются при первом обращении к BitKernels.get() или vector().
+ */
+final class BitKernelsHolder {
+    private static final Logger log = LoggerFactory.getLogger(BitKernels.class);
+    static final BitKernels VECTOR = loadVector();
+    static final BitKernels DEFAULT = select(System.getProperty("associativeprocessor.kernels", "auto"));
+
+    private BitKernelsHolder() {
+
+    }
+
+    /**
+     * VectorBitKernels загружается по имени, чтобы без модуля jdk.incubator.vector
+     * не загружались классы, ссылающиеся на него.
+     */
+    private static BitKernels loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (BitKernels) Class.forName("org.glebchanskiy.associativeprocessor.kernel.VectorBitKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector API kernels are unavailable: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static BitKernels select(String mode) {
+        BitKernels kernels = switch (mode) {
+            case "scalar" -> ScalarBitKernels.INSTANCE;
+            case "vector" -> {
+                if (VECTOR == null) log.warn("Vector API kernels requested but jdk.incubator.vector is not available");
+                yield VECTOR != null ? VECTOR : ScalarBitKernels.INSTANCE;
+            }
+            case "auto" -> VECTOR != null && VECTOR.lanes() >= 2 ? VECTOR : ScalarBitKernels.INSTANCE;
+            default -> throw new IllegalArgumentException("unknown associativeprocessor.kernels: " + mode);
+        };
+        log.info("bit kernels: {}", kernels.name());
+        return kernels;
+    }
+}
@@ -0,0 +1,77 @@
+package org.glebchanskiy.associativeprocessor.kernel;
+
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+
+/**
+ * Скалярные циклы по одному long, которые JIT может векторизовать сам там, где сумеет.
+ */
+final class ScalarBitKernels implements BitKernels {
+    static final ScalarBitKernels INSTANCE = new ScalarBitKernels();
+
+    private ScalarBitKernels() {
+
+    }
+
+    @Override
+    public void logic(LogicOperationType operation, long[] x1, long[] x2, long[] result, int from, int to) {
+        operation.apply(x1, x2, result, from, to);
+    }
+
+    @Override
+    public void match(long[] tags, long[] slice, long expected, int from, int to) {
+        for (int i = from; i < to; i++) {
+            tags[i] &= slice[i] ^ expected;
+        }
+    }
+
+    @Override
+    public void addBit(long[] first, long[] second, long[] carry, long[] result, long[] tags, boolean subtract, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long a = first[i];
+            long b = second[i];
+            long c = carry[i];
+            long sum = a ^ b ^ c;
+            carry[i] = subtract ? (~a & b) | (~(a ^ b) & c) : (a & b) | (c & (a ^ b));
+            result[i] = (result[i] & ~tags[i]) | (sum & tags[i]);
+        }
+    }
+
+    @Override
+    public void compareBit(long[] greater, long[] less, long[] x, long[] y, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long open = ~(greater[i] | less[i]);
+            greater[i] |= open & x[i] & ~y[i];
+            less[i] |= open & ~x[i] & y[i];
+        }
+    }
+
+    @Override
+    public void rangeBit(long[] greater, long[] less, long[] slice, int offset, int count, boolean boundBit) {
+        if (boundBit) {
+            for (int i = 0; i < count; i++) {
+                less[i] |= ~(greater[i] | less[i]) & ~slice[offset + i];
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                greater[i] |= ~(greater[i] | less[i]) & slice[offset + i];
+            }
+        }
+    }
+
+    @Override
+    public void rangeCombine(long[] lower, long lowerFlip, long[] upper, long upperFlip, long[] result, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            result[offset + i] |= (lower[i] ^ lowerFlip) & (upper[i] ^ upperFlip);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public int lanes() {
+        return 1;
+    }
+}
@@ -0,0 +1,121 @@
+package org.glebchanskiy.associativeprocessor.kernel;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+
+/**
+ * Циклы на LongVector предпочтительной для процессора ширины (SPECIES_PREFERRED),
+ * остаток, не кратный ширине вектора, обрабатывается скалярными циклами.
+ * Загружается только через BitKernels при подключённом модуле jdk.incubator.vector.
+ */
+final class VectorBitKernels implements BitKernels {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void logic(LogicOperationType operation, long[] x1, long[] x2, long[] result, int from, int to) {
+        long m0 = operation.apply(0L, 0L);
+        long m1 = operation.apply(0L, -1L);
+        long m2 = operation.apply(-1L, 0L);
+        long m3 = operation.apply(-1L, -1L);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            LongVector a = LongVector.fromArray(SPECIES, x1, i);
+            LongVector b = LongVector.fromArray(SPECIES, x2, i);
+            a.or(b).not().and(m0)
+                    .or(a.not().and(b).and(m1))
+                    .or(a.and(b.not()).and(m2))
+                    .or(a.and(b).and(m3))
+                    .intoArray(result, i);
+        }
+        ScalarBitKernels.INSTANCE.logic(operation, x1, x2, result, i, to);
+    }
+
+    @Override
+    public void match(long[] tags, long[] slice, long expected, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, tags, i)
+                    .and(LongVector.fromArray(SPECIES, slice, i).lanewise(VectorOperators.XOR, expected))
+                    .intoArray(tags, i);
+        }
+        ScalarBitKernels.INSTANCE.match(tags, slice, expected, i, to);
+    }
+
+    @Override
+    public void addBit(long[] first, long[] second, long[] carry, long[] result, long[] tags, boolean subtract, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            LongVector a = LongVector.fromArray(SPECIES, first, i);
+            LongVector b = LongVector.fromArray(SPECIES, second, i);
+            LongVector c = LongVector.fromArray(SPECIES, carry, i);
+            LongVector half = a.lanewise(VectorOperators.XOR, b);
+            LongVector next = subtract
+                    ? a.not().and(b).or(half.not().and(c))
+                    : a.and(b).or(c.and(half));
+            next.intoArray(carry, i);
+            LongVector.fromArray(SPECIES, result, i)
+                    .bitwiseBlend(half.lanewise(VectorOperators.XOR, c), LongVector.fromArray(SPECIES, tags, i))
+                    .intoArray(result, i);
+        }
+        ScalarBitKernels.INSTANCE.addBit(first, second, carry, result, tags, subtract, i, to);
+    }
+
+    @Override
+    public void compareBit(long[] greater, long[] less, long[] x, long[] y, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            LongVector gt = LongVector.fromArray(SPECIES, greater, i);
+            LongVector lt = LongVector.fromArray(SPECIES, less, i);
+            LongVector a = LongVector.fromArray(SPECIES, x, i);
+            LongVector b = LongVector.fromArray(SPECIES, y, i);
+            LongVector open = gt.or(lt).not();
+            gt.or(open.and(a).and(b.not())).intoArray(greater, i);
+            lt.or(open.and(a.not()).and(b)).intoArray(less, i);
+        }
+        ScalarBitKernels.INSTANCE.compareBit(greater, less, x, y, i, to);
+    }
+
+    @Override
+    public void rangeBit(long[] greater, long[] less, long[] slice, int offset, int count, boolean boundBit) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            LongVector gt = LongVector.fromArray(SPECIES, greater, i);
+            LongVector lt = LongVector.fromArray(SPECIES, less, i);
+            LongVector s = LongVector.fromArray(SPECIES, slice, offset + i);
+            LongVector open = gt.or(lt).not();
+            if (boundBit) lt.or(open.and(s.not())).intoArray(less, i);
+            else gt.or(open.and(s)).intoArray(greater, i);
+        }
+        for (; i < count; i++) {
+            if (boundBit) less[i] |= ~(greater[i] | less[i]) & ~slice[offset + i];
+            else greater[i] |= ~(greater[i] | less[i]) & slice[offset + i];
+        }
+    }
+
+    @Override
+    public void rangeCombine(long[] lower, long lowerFlip, long[] upper, long upperFlip, long[] result, int offset, int count) {
+        LongVector lowerMask = LongVector.broadcast(SPECIES, lowerFlip);
+        LongVector upperMask = LongVector.broadcast(SPECIES, upperFlip);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            LongVector above = LongVector.fromArray(SPECIES, lower, i).lanewise(VectorOperators.XOR, lowerMask);
+            LongVector below = LongVector.fromArray(SPECIES, upper, i).lanewise(VectorOperators.XOR, upperMask);
+            LongVector.fromArray(SPECIES, result, offset + i).or(above.and(below)).intoArray(result, offset + i);
+        }
+        for (; i < count; i++) {
+            result[offset + i] |= (lower[i] ^ lowerFlip) & (upper[i] ^ upperFlip);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+}
@@ -0,0 +1,35 @@
+package org.glebchanskiy.associativeprocessor.layout;
+
+/**
+ * Поле слова: разряды offset..offset+width-1 (разряд offset - старший бит поля).
+ */
+public record Field(String name, int offset, int width) {
+
+    public Field {
+        if (offset < 0 || width < 1 || width > Long.SIZE)
+            throw new IllegalArgumentException("invalid field " + name + " [" + offset + ", " + width + "]");
+    }
+
+    /**
+     * Номер разрядного среза для bit-го бита поля, считая от младшего.
+     */
+    public int slice(int bit) {
+        return offset + width - 1 - bit;
+    }
+
+    public int end() {
+        return offset + width;
+    }
+
+    public boolean overlaps(Field other) {
+        return offset < other.end() && other.offset < end();
+    }
+
+    /**
+     * Значение поля в упакованном слове шириной wordWidth.
+     */
+    public long valueOf(long word, int wordWidth) {
+        long value = word >>> (wordWidth - end());
+        return width == Long.SIZE ? value : value & ((1L << width) - 1);
+    }
+}
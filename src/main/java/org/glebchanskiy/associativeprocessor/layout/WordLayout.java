@@ -0,0 +1,53 @@
+package org.glebchanskiy.associativeprocessor.layout;
+
+/**
+ * Расположение полей слова для операций с маской:
+ * V - ключ, сравниваемый с регистром маски, A и B - операнды, S - результат.
+ */
+public class WordLayout {
+    /**
+     * Раскладка 16-битного слова по условию: V=0..2, A=3..6, B=7..10, S=11..15.
+     */
+    public static final WordLayout DEFAULT = WordSchema.DEFAULT.layout("V", "A", "B", "S");
+
+    private final Field key;
+    private final Field first;
+    private final Field second;
+    private final Field result;
+
+    public WordLayout(Field key, Field first, Field second, Field result) {
+        if (result.overlaps(first) || result.overlaps(second) || result.overlaps(key))
+            throw new IllegalArgumentException("result field " + result + " overlaps operands");
+        this.key = key;
+        this.first = first;
+        this.second = second;
+        this.result = result;
+    }
+
+    public Field key() {
+        return key;
+    }
+
+    public Field first() {
+        return first;
+    }
+
+    public Field second() {
+        return second;
+    }
+
+    public Field result() {
+        return result;
+    }
+
+    public void checkFits(int wordWidth) {
+        int end = Math.max(Math.max(key.end(), first.end()), Math.max(second.end(), result.end()));
+        if (end > wordWidth)
+            throw new IllegalArgumentException(this + " does not fit into " + wordWidth + "-bit word");
+    }
+
+    @Override
+    public String toString() {
+        return "WordLayout{" + key + ", " + first + ", " + second + ", " + result + '}';
+    }
+}
@@ -0,0 +1,107 @@
+package org.glebchanskiy.associativeprocessor.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Схема слова: именованные непересекающиеся поля.
+ * <pre>
+ * WordSchema.builder()
+ *         .field("V", 3)
+ *         .field("A", 4)
+ *         .field("B", 4)
+ *         .field("S", 5)
+ *         .build();
+ * </pre>
+ * Поле без смещения располагается сразу за предыдущим (от старших разрядов слова).
+ */
+public class WordSchema {
+    /**
+     * Схема 16-битного слова по условию: V=0..2, A=3..6, B=7..10, S=11..15.
+     */
+    public static final WordSchema DEFAULT = builder().field("V", 3).field("A", 4).field("B", 4).field("S", 5).build();
+
+    private final Map<String, Field> fields;
+    private final int width;
+
+    private WordSchema(Map<String, Field> fields) {
+        this.fields = Collections.unmodifiableMap(fields);
+        this.width = fields.values().stream().mapToInt(Field::end).max().orElse(0);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final Map<String, Field> fields = new LinkedHashMap<>();
+        private int next;
+
+        private Builder() {
+
+        }
+
+        public Builder field(String name, int width) {
+            return field(name, next, width);
+        }
+
+        public Builder field(String name, int offset, int width) {
+            Field field = new Field(name, offset, width);
+            if (fields.containsKey(name))
+                throw new IllegalArgumentException("duplicate field " + name);
+            for (Field other : fields.values()) {
+                if (field.overlaps(other))
+                    throw new IllegalArgumentException(field + " overlaps " + other);
+            }
+            fields.put(name, field);
+            next = Math.max(next, field.end());
+            return this;
+        }
+
+        public WordSchema build() {
+            return new WordSchema(new LinkedHashMap<>(fields));
+        }
+    }
+
+    public Field field(String name) {
+        Field field = fields.get(name);
+        if (field == null)
+            throw new IllegalArgumentException("unknown field " + name + ", expected one of " + fields.keySet());
+        return field;
+    }
+
+    public boolean contains(String name) {
+        return fields.containsKey(name);
+    }
+
+    public List<Field> fields() {
+        return new ArrayList<>(fields.values());
+    }
+
+    /**
+     * Минимальная ширина слова, в которую помещаются все поля.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Раскладка для операций с маской из полей схемы.
+     */
+    public WordLayout layout(String key, String first, String second, String result) {
+        return new WordLayout(field(key), field(first), field(second), field(result));
+    }
+
+    public void checkFits(int wordWidth) {
+        if (width > wordWidth)
+            throw new IllegalArgumentException(this + " does not fit into " + wordWidth + "-bit word");
+    }
+
+    @Override
+    public String toString() {
+        return "WordSchema" + fields.values();
+    }
+}
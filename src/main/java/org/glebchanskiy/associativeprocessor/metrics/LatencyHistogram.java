@@ -0,0 +1,93 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмически-линейными корзинами:
+ * каждая степень двойки делится на 2^SUB_BITS равных корзин, поэтому относительная
+ * погрешность перцентилей не больше 1/32, а объём памяти постоянен (~15 КБ).
+ * Запись без блокировок и без выделения памяти, можно писать из нескольких потоков.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Значение, не меньше которого не более (1 - quantile) записанных задержек
+     * (верхняя граница корзины, но не больше максимума). quantile в [0, 1].
+     */
+    public long percentile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("quantile must be in [0, 1]: " + quantile);
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            total += counts.get(b);
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(highestOf(b), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int group = exponent - SUB_BITS + 1;
+        return (group << SUB_BITS) + (int) ((value >>> (group - 1)) & (SUB_BUCKETS - 1));
+    }
+
+    private static long highestOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int group = bucket >>> SUB_BITS;
+        long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (group - 1);
+        return lowest + (1L << (group - 1)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d p50=%.1fus p99=%.1fus max=%.1fus", count(),
+                percentile(0.5) / 1e3, percentile(0.99) / 1e3, max() / 1e3);
+    }
+}
@@ -0,0 +1,107 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики обращений к памяти на LongAdder: запись без блокировок из любого потока
+ * (шарды процессора обращаются к срезам параллельно), чтение суммирует ячейки.
+ * Счётчики с родителем (parent) учитывают каждое обращение и в нём: так у процессора
+ * свои счётчики, а у общей памяти - общие.
+ */
+public class MemoryCounters implements MemoryMetricsMXBean {
+    private final MemoryCounters parent;
+    private final LongAdder columnReads = new LongAdder();
+    private final LongAdder columnWrites = new LongAdder();
+    private final LongAdder wordReads = new LongAdder();
+    private final LongAdder wordWrites = new LongAdder();
+    private final LongAdder bitsRead = new LongAdder();
+    private final LongAdder bitsWritten = new LongAdder();
+
+    public MemoryCounters() {
+        this(null);
+    }
+
+    public MemoryCounters(MemoryCounters parent) {
+        this.parent = parent;
+    }
+
+    public void readColumn(long bits) {
+        columnReads.increment();
+        bitsRead.add(bits);
+        if (parent != null) parent.readColumn(bits);
+    }
+
+    public void writeColumn(long bits) {
+        columnWrites.increment();
+        bitsWritten.add(bits);
+        if (parent != null) parent.writeColumn(bits);
+    }
+
+    public void readWord(int width) {
+        wordReads.increment();
+        bitsRead.add(width);
+        if (parent != null) parent.readWord(width);
+    }
+
+    public void writeWord(int width) {
+        wordWrites.increment();
+        bitsWritten.add(width);
+        if (parent != null) parent.writeWord(width);
+    }
+
+    public void readBit() {
+        bitsRead.increment();
+        if (parent != null) parent.readBit();
+    }
+
+    public void writeBit() {
+        bitsWritten.increment();
+        if (parent != null) parent.writeBit();
+    }
+
+    @Override
+    public long getColumnReads() {
+        return columnReads.sum();
+    }
+
+    @Override
+    public long getColumnWrites() {
+        return columnWrites.sum();
+    }
+
+    @Override
+    public long getWordReads() {
+        return wordReads.sum();
+    }
+
+    @Override
+    public long getWordWrites() {
+        return wordWrites.sum();
+    }
+
+    @Override
+    public long getBitsRead() {
+        return bitsRead.sum();
+    }
+
+    @Override
+    public long getBitsWritten() {
+        return bitsWritten.sum();
+    }
+
+    @Override
+    public void reset() {
+        columnReads.reset();
+        columnWrites.reset();
+        wordReads.reset();
+        wordWrites.reset();
+        bitsRead.reset();
+        bitsWritten.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("columns %d read / %d written, words %d read / %d written, bits %d read / %d written",
+                getColumnReads(), getColumnWrites(), getWordReads(), getWordWrites(), getBitsRead(), getBitsWritten());
+    }
+}
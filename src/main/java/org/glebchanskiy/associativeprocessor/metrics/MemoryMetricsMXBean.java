@@ -0,0 +1,21 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+/**
+ * Счётчики обращений к памяти (JMX).
+ * Столбец - разрядный срез или его диапазон; биты - количество прочитанных или записанных разрядов.
+ */
+public interface MemoryMetricsMXBean {
+    long getColumnReads();
+
+    long getColumnWrites();
+
+    long getWordReads();
+
+    long getWordWrites();
+
+    long getBitsRead();
+
+    long getBitsWritten();
+
+    void reset();
+}
@@ -0,0 +1,23 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+import java.util.List;
+
+/**
+ * Снимок метрик процессора: счётчики памяти и стоимость каждого вида операций, которые выполнялись.
+ */
+public record MetricsSnapshot(long columnReads, long columnWrites, long wordReads, long wordWrites,
+                              long bitsRead, long bitsWritten, List<OperationSnapshot> operations) {
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        output.append(String.format("memory: columns %d read / %d written, words %d read / %d written, bits %d read / %d written%n",
+                columnReads, columnWrites, wordReads, wordWrites, bitsRead, bitsWritten));
+        output.append(String.format("%-32s %9s %10s %10s %10s %12s %12s %12s%n",
+                "operation", "count", "mean, us", "p50, us", "p99, us", "columns/op", "bits/op", "matched"));
+        for (OperationSnapshot operation : operations) {
+            output.append(operation).append('\n');
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопленная стоимость одного вида операций: количество, задержка, обращения к памяти
+ * (по счётчикам процессора, выполнившего операцию, без обращений других процессоров)
+ * и количество отозвавшихся слов (посчитанное самим поиском).
+ */
+public class OperationCost implements OperationMetricsMXBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder columnReads = new LongAdder();
+    private final LongAdder columnWrites = new LongAdder();
+    private final LongAdder bitsTouched = new LongAdder();
+    private final LongAdder wordsMatched = new LongAdder();
+
+    public OperationCost(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos, long columnReads, long columnWrites, long bitsTouched) {
+        latency.record(nanos);
+        this.columnReads.add(columnReads);
+        this.columnWrites.add(columnWrites);
+        this.bitsTouched.add(bitsTouched);
+    }
+
+    public void matched(long words) {
+        wordsMatched.add(words);
+    }
+
+    public OperationSnapshot snapshot() {
+        return new OperationSnapshot(name, latency.count(), (long) latency.mean(), latency.percentile(0.5),
+                latency.percentile(0.99), latency.max(), columnReads.sum(), columnWrites.sum(),
+                bitsTouched.sum(), wordsMatched.sum());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.count();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.mean() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.percentile(0.5) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.max() / 1e3;
+    }
+
+    @Override
+    public long getColumnReads() {
+        return columnReads.sum();
+    }
+
+    @Override
+    public long getColumnWrites() {
+        return columnWrites.sum();
+    }
+
+    @Override
+    public long getBitsTouched() {
+        return bitsTouched.sum();
+    }
+
+    @Override
+    public long getWordsMatched() {
+        return wordsMatched.sum();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        columnReads.reset();
+        columnWrites.reset();
+        bitsTouched.reset();
+        wordsMatched.reset();
+    }
+}
@@ -0,0 +1,28 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+/**
+ * Стоимость одного вида операций процессора (JMX).
+ */
+public interface OperationMetricsMXBean {
+    String getName();
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    long getColumnReads();
+
+    long getColumnWrites();
+
+    long getBitsTouched();
+
+    long getWordsMatched();
+
+    void reset();
+}
@@ -0,0 +1,24 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+/**
+ * Снимок стоимости вида операций. Средние на операцию - модель стоимости для оценки мощности:
+ * bitsPerOperation разрядов памяти и columnsPerOperation обращений к столбцам на один вызов.
+ */
+public record OperationSnapshot(String name, long count, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos,
+                                long columnReads, long columnWrites, long bitsTouched, long wordsMatched) {
+
+    public double bitsPerOperation() {
+        return count == 0 ? 0 : (double) bitsTouched / count;
+    }
+
+    public double columnsPerOperation() {
+        return count == 0 ? 0 : (double) (columnReads + columnWrites) / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-32s %9d %10.1f %10.1f %10.1f %12.0f %12.0f %12d",
+                name, count, meanNanos / 1e3, p50Nanos / 1e3, p99Nanos / 1e3,
+                columnsPerOperation(), bitsPerOperation(), wordsMatched);
+    }
+}
@@ -0,0 +1,98 @@
+package org.glebchanskiy.associativeprocessor.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Метрики процессора: счётчики памяти и стоимость операций по видам ("LOAD.TO_BUFFER_REGISTER",
+ * "SLICE_LOGIC.FUNC_6", "ARITHMETIC.SUM_AJ_BJ_MASKED", "INTERVAL_SEARCH" ...).
+ * Включены по умолчанию, выключаются свойством -Dassociativeprocessor.metrics=false.
+ * Запись - несколько LongAdder и одна корзина гистограммы на операцию, без блокировок и выделения памяти.
+ * register публикует метрики в платформенном MBeanServer:
+ * org.glebchanskiy.associativeprocessor:type=Memory,name=...,
+ * org.glebchanskiy.associativeprocessor:type=Operation,name=...,operation=....
+ */
+public class ProcessorMetrics {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("associativeprocessor.metrics"));
+    public static final String DOMAIN = "org.glebchanskiy.associativeprocessor";
+    private static final Logger log = LoggerFactory.getLogger(ProcessorMetrics.class);
+
+    private final MemoryCounters memory;
+    private final Map<String, OperationCost> operations = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public ProcessorMetrics(MemoryCounters memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * Стоимость вида операций (создаётся при первом обращении).
+     */
+    public OperationCost operation(String name) {
+        return operations.computeIfAbsent(name, OperationCost::new);
+    }
+
+    public MemoryCounters memory() {
+        return memory;
+    }
+
+    public MetricsSnapshot snapshot() {
+        List<OperationSnapshot> snapshots = new ArrayList<>();
+        for (OperationCost cost : operations.values()) {
+            OperationSnapshot snapshot = cost.snapshot();
+            if (snapshot.count() > 0) snapshots.add(snapshot);
+        }
+        snapshots.sort((a, b) -> a.name().compareTo(b.name()));
+        return new MetricsSnapshot(memory.getColumnReads(), memory.getColumnWrites(), memory.getWordReads(),
+                memory.getWordWrites(), memory.getBitsRead(), memory.getBitsWritten(), snapshots);
+    }
+
+    public void reset() {
+        memory.reset();
+        operations.values().forEach(OperationCost::reset);
+    }
+
+    /**
+     * Регистрирует MBean памяти и всех видов операций, известных на момент вызова
+     * (виды создаются заранее процессором). name различает процессоры в одной JVM.
+     */
+    public synchronized void register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName memoryName = new ObjectName(DOMAIN + ":type=Memory,name=" + ObjectName.quote(name));
+            server.registerMBean(memory, memoryName);
+            registered.add(memoryName);
+            for (OperationCost cost : operations.values()) {
+                ObjectName operationName = new ObjectName(DOMAIN + ":type=Operation,name=" + ObjectName.quote(name)
+                        + ",operation=" + ObjectName.quote(cost.getName()));
+                server.registerMBean(cost, operationName);
+                registered.add(operationName);
+            }
+        } catch (JMException e) {
+            unregister();
+            throw new IllegalStateException("cannot register metrics " + name, e);
+        }
+        log.info("registered {} MBeans for {}", registered.size(), name);
+    }
+
+    public synchronized void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                log.warn("cannot unregister {}", name, e);
+            }
+        }
+        registered.clear();
+    }
+}
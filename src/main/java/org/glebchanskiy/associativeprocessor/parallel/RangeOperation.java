@@ -0,0 +1,10 @@
+package org.glebchanskiy.associativeprocessor.parallel;
+
+/**
+ * Операция над диапазоном элементов from..to-1 упакованных срезов (слова from*64..to*64-1).
+ * Возвращает частичный результат (например, количество помеченных слов), который суммируется по шардам.
+ */
+@FunctionalInterface
+public interface RangeOperation {
+    long apply(int from, int to);
+}
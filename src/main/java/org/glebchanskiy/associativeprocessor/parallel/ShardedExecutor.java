@@ -0,0 +1,88 @@
+package org.glebchanskiy.associativeprocessor.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Делит память на шарды по словам (границы кратны 64 словам) и выполняет
+ * операцию над шардами в ForkJoinPool. Каждый шард пишет только в свои элементы
+ * срезов и векторов тегов, а частичные результаты суммируются при объединении задач,
+ * поэтому шарды не конкурируют за общие данные.
+ */
+public class ShardedExecutor {
+    /**
+     * Минимальный размер шарда в элементах среза (65536 слов): меньшие шарды не окупают fork/join.
+     */
+    public static final int MIN_SHARD_LENGTH = 1 << 10;
+    private static final ShardedExecutor SEQUENTIAL = new ShardedExecutor(null, 1);
+
+    private final ForkJoinPool pool;
+    private final int shards;
+
+    public ShardedExecutor(ForkJoinPool pool, int shards) {
+        if (shards < 1)
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        this.pool = pool;
+        this.shards = shards;
+    }
+
+    /**
+     * Выполнение в вызывающем потоке без деления на шарды.
+     */
+    public static ShardedExecutor sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * По шарду на ядро в общем пуле.
+     */
+    public static ShardedExecutor parallel() {
+        return new ShardedExecutor(ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism());
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    /**
+     * Выполняет операцию над элементами 0..length-1 и возвращает сумму частичных результатов.
+     */
+    public long run(int length, RangeOperation operation) {
+        int count = Math.min(shards, Math.max(1, length / MIN_SHARD_LENGTH));
+        if (pool == null || count == 1) return operation.apply(0, length);
+        return pool.invoke(new ShardTask(operation, length, count, 0, count));
+    }
+
+    private static class ShardTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final RangeOperation operation;
+        private final int length;
+        private final int count;
+        private final int firstShard;
+        private final int lastShard;
+
+        ShardTask(RangeOperation operation, int length, int count, int firstShard, int lastShard) {
+            this.operation = operation;
+            this.length = length;
+            this.count = count;
+            this.firstShard = firstShard;
+            this.lastShard = lastShard;
+        }
+
+        @Override
+        protected Long compute() {
+            if (lastShard - firstShard == 1) {
+                return operation.apply(boundary(firstShard), boundary(lastShard));
+            }
+            int middle = (firstShard + lastShard) >>> 1;
+            ShardTask right = new ShardTask(operation, length, count, middle, lastShard);
+            right.fork();
+            long left = new ShardTask(operation, length, count, firstShard, middle).compute();
+            return left + right.join();
+        }
+
+        private int boundary(int shard) {
+            return (int) ((long) length * shard / count);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.glebchanskiy.associativeprocessor.program;
+
+import org.glebchanskiy.associativeprocessor.enums.Load;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.enums.Store;
+
+/**
+ * Инструкция ассоциативного процессора.
+ */
+public sealed interface Instruction {
+
+    /**
+     * loadBitSlice(address, type)
+     */
+    record LoadInstruction(int address, Load type) implements Instruction {
+    }
+
+    /**
+     * storeBitSlice(address, type)
+     */
+    record StoreInstruction(int address, Store type) implements Instruction {
+    }
+
+    /**
+     * execLogicalOperation(address, operation): буфер = f(буфер, слово по адресу)
+     */
+    record LogicInstruction(int address, LogicOperationType operation) implements Instruction {
+    }
+
+    /**
+     * execSliceLogicalOperation(destination, source1, source2, operation) над разрядными срезами
+     */
+    record SliceLogicInstruction(int destination, int source1, int source2,
+                                 LogicOperationType operation) implements Instruction {
+    }
+
+    /**
+     * moveBitSlice(fromAddress, toAddress): буфер = слово fromAddress, слово toAddress = буфер
+     */
+    record MoveInstruction(int fromAddress, int toAddress) implements Instruction {
+    }
+
+    /**
+     * Результат слияния load(source1) -> op(source2) -> store(destination):
+     * буфер = f(слово source1, слово source2), слово destination = буфер.
+     */
+    record FusedLogicInstruction(int destination, int source1, int source2,
+                                 LogicOperationType operation) implements Instruction {
+    }
+}
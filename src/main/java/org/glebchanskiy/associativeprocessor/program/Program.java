@@ -0,0 +1,55 @@
+package org.glebchanskiy.associativeprocessor.program;
+
+import org.glebchanskiy.associativeprocessor.enums.Load;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.enums.Store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Программа - последовательность инструкций, выполняемая процессором целиком.
+ * <pre>
+ * new Program()
+ *         .load(0x0, Load.TO_BUFFER_REGISTER)
+ *         .logic(0x1, LogicOperationType.FUNC_2)
+ *         .store(0x2, Store.FROM_BUFFER_REGISTER);
+ * </pre>
+ */
+public class Program {
+    private final List<Instruction> instructions = new ArrayList<>();
+
+    public Program load(int address, Load type) {
+        return add(new Instruction.LoadInstruction(address, type));
+    }
+
+    public Program store(int address, Store type) {
+        return add(new Instruction.StoreInstruction(address, type));
+    }
+
+    public Program logic(int address, LogicOperationType operation) {
+        return add(new Instruction.LogicInstruction(address, operation));
+    }
+
+    public Program sliceLogic(int destination, int source1, int source2, LogicOperationType operation) {
+        return add(new Instruction.SliceLogicInstruction(destination, source1, source2, operation));
+    }
+
+    public Program move(int fromAddress, int toAddress) {
+        return add(new Instruction.MoveInstruction(fromAddress, toAddress));
+    }
+
+    public Program add(Instruction instruction) {
+        instructions.add(instruction);
+        return this;
+    }
+
+    public List<Instruction> instructions() {
+        return Collections.unmodifiableList(instructions);
+    }
+
+    public int size() {
+        return instructions.size();
+    }
+}
@@ -0,0 +1,58 @@
+package org.glebchanskiy.associativeprocessor.program;
+
+import org.glebchanskiy.associativeprocessor.enums.Load;
+import org.glebchanskiy.associativeprocessor.enums.Store;
+import org.glebchanskiy.associativeprocessor.program.Instruction.FusedLogicInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.LoadInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.LogicInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.MoveInstruction;
+import org.glebchanskiy.associativeprocessor.program.Instruction.StoreInstruction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сливает типичные последовательности инструкций в одну:
+ * 1. load(a, TO_BUFFER) -> logic(b, f) -> store(c, FROM_BUFFER) => fused(c = f(a, b))
+ * 2. load(a, TO_BUFFER) -> store(c, FROM_BUFFER) => move(a, c)
+ * 3. load(a, TO_BUFFER) -> load(b, TO_BUFFER) => load(b, TO_BUFFER) (первая загрузка не используется)
+ * Состояние памяти и регистров после выполнения не меняется.
+ */
+public class ProgramCompiler {
+    private ProgramCompiler() {
+
+    }
+
+    public static List<Instruction> compile(List<Instruction> instructions) {
+        List<Instruction> plan = new ArrayList<>(instructions.size());
+        int i = 0;
+        while (i < instructions.size()) {
+            Instruction current = instructions.get(i);
+            Instruction next = i + 1 < instructions.size() ? instructions.get(i + 1) : null;
+            Instruction afterNext = i + 2 < instructions.size() ? instructions.get(i + 2) : null;
+            if (current instanceof LoadInstruction load && load.type() == Load.TO_BUFFER_REGISTER) {
+                if (next instanceof LogicInstruction logic && isStoreFromBuffer(afterNext)) {
+                    plan.add(new FusedLogicInstruction(((StoreInstruction) afterNext).address(), load.address(), logic.address(), logic.operation()));
+                    i += 3;
+                    continue;
+                }
+                if (isStoreFromBuffer(next)) {
+                    plan.add(new MoveInstruction(load.address(), ((StoreInstruction) next).address()));
+                    i += 2;
+                    continue;
+                }
+                if (next instanceof LoadInstruction nextLoad && nextLoad.type() == Load.TO_BUFFER_REGISTER) {
+                    i++;
+                    continue;
+                }
+            }
+            plan.add(current);
+            i++;
+        }
+        return plan;
+    }
+
+    private static boolean isStoreFromBuffer(Instruction instruction) {
+        return instruction instanceof StoreInstruction store && store.type() == Store.FROM_BUFFER_REGISTER;
+    }
+}
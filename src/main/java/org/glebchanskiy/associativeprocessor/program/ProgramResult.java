@@ -0,0 +1,11 @@
+package org.glebchanskiy.associativeprocessor.program;
+
+/**
+ * Итог выполнения программы: количество инструкций до и после слияния и время выполнения.
+ */
+public record ProgramResult(int instructions, int executed, long nanos) {
+
+    public double instructionsPerSecond() {
+        return nanos == 0 ? Double.POSITIVE_INFINITY : instructions * 1e9 / nanos;
+    }
+}
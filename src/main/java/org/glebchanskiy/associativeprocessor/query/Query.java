@@ -0,0 +1,113 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import java.util.List;
+
+/**
+ * Разобранный запрос: условия WHERE (конъюнкция) и присваивания SET.
+ * <pre>
+ * WHERE V = 3 AND A BETWEEN :x AND :y SET S = A + B
+ * </pre>
+ * Значения - константы (десятичные, 0x.., 0b..) или параметры :имя, задаваемые при компиляции плана.
+ */
+public record Query(List<Predicate> where, List<Assignment> set) {
+
+    public Query {
+        where = List.copyOf(where);
+        set = List.copyOf(set);
+    }
+
+    public static Query parse(String text) {
+        return QueryParser.parse(text);
+    }
+
+    /**
+     * Операнд: поле, константа или параметр.
+     */
+    public sealed interface Term {
+    }
+
+    public record FieldRef(String name) implements Term {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public record Constant(long value) implements Term {
+        @Override
+        public String toString() {
+            return Long.toUnsignedString(value);
+        }
+    }
+
+    public record Parameter(String name) implements Term {
+        @Override
+        public String toString() {
+            return ":" + name;
+        }
+    }
+
+    public enum Operator {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">="), BETWEEN("BETWEEN");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+    }
+
+    /**
+     * field op value или field BETWEEN value AND upper (границы включены).
+     */
+    public record Predicate(String field, Operator operator, Term value, Term upper) {
+        @Override
+        public String toString() {
+            return operator == Operator.BETWEEN
+                    ? field + " BETWEEN " + value + " AND " + upper
+                    : field + " " + operator.symbol() + " " + value;
+        }
+    }
+
+    public enum Arithmetic {
+        ADD('+'), SUBTRACT('-'), MULTIPLY('*');
+
+        private final char symbol;
+
+        Arithmetic(char symbol) {
+            this.symbol = symbol;
+        }
+
+        public char symbol() {
+            return symbol;
+        }
+    }
+
+    /**
+     * target = left или target = left op right (operator и right - null для простого присваивания).
+     */
+    public record Assignment(String target, Term left, Arithmetic operator, Term right) {
+        @Override
+        public String toString() {
+            return operator == null
+                    ? target + " = " + left
+                    : target + " = " + left + " " + operator.symbol() + " " + right;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < where.size(); i++) {
+            output.append(i == 0 ? "WHERE " : " AND ").append(where.get(i));
+        }
+        for (int i = 0; i < set.size(); i++) {
+            output.append(output.isEmpty() ? "" : " ").append(i == 0 ? "SET " : ", ").append(set.get(i));
+        }
+        return output.toString();
+    }
+}
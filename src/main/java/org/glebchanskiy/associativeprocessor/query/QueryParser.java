@@ -0,0 +1,169 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import org.glebchanskiy.associativeprocessor.query.Query.Arithmetic;
+import org.glebchanskiy.associativeprocessor.query.Query.Assignment;
+import org.glebchanskiy.associativeprocessor.query.Query.Constant;
+import org.glebchanskiy.associativeprocessor.query.Query.FieldRef;
+import org.glebchanskiy.associativeprocessor.query.Query.Operator;
+import org.glebchanskiy.associativeprocessor.query.Query.Parameter;
+import org.glebchanskiy.associativeprocessor.query.Query.Predicate;
+import org.glebchanskiy.associativeprocessor.query.Query.Term;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбор запроса рекурсивным спуском:
+ * <pre>
+ * query      = [WHERE predicate {AND predicate}] [SET assignment {, assignment}]
+ * predicate  = field (= | != | <> | < | <= | > | >=) value | field BETWEEN value AND value
+ * assignment = field = term [(+ | - | *) term]
+ * term       = field | value
+ * value      = число (123, 0x7B, 0b1111011) | :параметр
+ * </pre>
+ * Ключевые слова нечувствительны к регистру, имена полей - чувствительны.
+ */
+public class QueryParser {
+    private final String text;
+    private int position;
+
+    private QueryParser(String text) {
+        this.text = text;
+    }
+
+    public static Query parse(String text) {
+        QueryParser parser = new QueryParser(text);
+        Query query = parser.query();
+        parser.skipSpaces();
+        if (parser.position < text.length())
+            throw parser.error("unexpected '" + text.charAt(parser.position) + "'");
+        return query;
+    }
+
+    private Query query() {
+        List<Predicate> where = new ArrayList<>();
+        List<Assignment> set = new ArrayList<>();
+        if (keyword("WHERE")) {
+            do {
+                where.add(predicate());
+            } while (keyword("AND"));
+        }
+        if (keyword("SET")) {
+            do {
+                set.add(assignment());
+            } while (symbol(","));
+        }
+        if (where.isEmpty() && set.isEmpty())
+            throw error("expected WHERE or SET");
+        return new Query(where, set);
+    }
+
+    private Predicate predicate() {
+        String field = identifier();
+        if (keyword("BETWEEN")) {
+            Term lower = value();
+            expectKeyword("AND");
+            return new Predicate(field, Operator.BETWEEN, lower, value());
+        }
+        Operator operator;
+        if (symbol("<=")) operator = Operator.LE;
+        else if (symbol(">=")) operator = Operator.GE;
+        else if (symbol("!=") || symbol("<>")) operator = Operator.NE;
+        else if (symbol("<")) operator = Operator.LT;
+        else if (symbol(">")) operator = Operator.GT;
+        else if (symbol("=")) operator = Operator.EQ;
+        else throw error("expected comparison operator");
+        return new Predicate(field, operator, value(), null);
+    }
+
+    private Assignment assignment() {
+        String target = identifier();
+        if (!symbol("="))
+            throw error("expected '='");
+        Term left = term();
+        Arithmetic operator = null;
+        if (symbol("+")) operator = Arithmetic.ADD;
+        else if (symbol("-")) operator = Arithmetic.SUBTRACT;
+        else if (symbol("*")) operator = Arithmetic.MULTIPLY;
+        return new Assignment(target, left, operator, operator == null ? null : term());
+    }
+
+    private Term term() {
+        skipSpaces();
+        if (position < text.length() && Character.isLetter(text.charAt(position)))
+            return new FieldRef(identifier());
+        return value();
+    }
+
+    private Term value() {
+        skipSpaces();
+        if (symbol(":"))
+            return new Parameter(identifier());
+        int start = position;
+        while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+            position++;
+        }
+        String literal = text.substring(start, position).toLowerCase(Locale.ROOT);
+        if (literal.isEmpty() || !Character.isDigit(literal.charAt(0))) {
+            position = start;
+            throw error("expected number or :parameter");
+        }
+        try {
+            if (literal.startsWith("0x")) return new Constant(Long.parseUnsignedLong(literal.substring(2), 16));
+            if (literal.startsWith("0b")) return new Constant(Long.parseUnsignedLong(literal.substring(2), 2));
+            return new Constant(Long.parseUnsignedLong(literal));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("malformed number " + literal);
+        }
+    }
+
+    private String identifier() {
+        skipSpaces();
+        int start = position;
+        if (position < text.length() && Character.isLetter(text.charAt(position))) {
+            while (position < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+                position++;
+            }
+        }
+        if (start == position)
+            throw error("expected name");
+        return text.substring(start, position);
+    }
+
+    private boolean keyword(String keyword) {
+        skipSpaces();
+        int end = position + keyword.length();
+        if (end > text.length() || !text.regionMatches(true, position, keyword, 0, keyword.length()))
+            return false;
+        if (end < text.length() && Character.isLetterOrDigit(text.charAt(end)))
+            return false;
+        position = end;
+        return true;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!keyword(keyword))
+            throw error("expected " + keyword);
+    }
+
+    private boolean symbol(String symbol) {
+        skipSpaces();
+        if (!text.startsWith(symbol, position))
+            return false;
+        position += symbol.length();
+        return true;
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + position + " in \"" + text + "\"");
+    }
+}
@@ -0,0 +1,42 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import java.util.List;
+
+/**
+ * Скомпилированный запрос: шаги отбора в порядке возрастания оценки селективности
+ * и шаги изменения в порядке записи. empty - условия противоречивы (ни одно слово
+ * не может им удовлетворять), такой план не читает память.
+ */
+public record QueryPlan(Query query, List<QueryStep.Filter> filters, List<QueryStep.Update> updates, boolean empty) {
+
+    public QueryPlan {
+        filters = List.copyOf(filters);
+        updates = List.copyOf(updates);
+    }
+
+    /**
+     * Наибольшее количество срезов, затрагиваемых планом.
+     */
+    public int slices() {
+        if (empty) return 0;
+        return filters.stream().mapToInt(QueryStep::slices).sum() + updates.stream().mapToInt(QueryStep::slices).sum();
+    }
+
+    public String explain() {
+        StringBuilder output = new StringBuilder(query.toString()).append('\n');
+        if (empty) return output.append("  empty: contradictory conditions\n").toString();
+        if (filters.isEmpty()) output.append("  all words\n");
+        for (QueryStep.Filter filter : filters) {
+            output.append(String.format("  filter %-40s slices=%-3d selectivity=%.4g%n", filter, filter.slices(), filter.selectivity()));
+        }
+        for (QueryStep.Update update : updates) {
+            output.append(String.format("  update %-40s slices=%d%n", update, update.slices()));
+        }
+        return output.append("  total slices <= ").append(slices()).append('\n').toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
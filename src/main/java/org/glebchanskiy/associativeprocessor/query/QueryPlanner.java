@@ -0,0 +1,211 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordSchema;
+import org.glebchanskiy.associativeprocessor.query.Query.Arithmetic;
+import org.glebchanskiy.associativeprocessor.query.Query.Assignment;
+import org.glebchanskiy.associativeprocessor.query.Query.Constant;
+import org.glebchanskiy.associativeprocessor.query.Query.FieldRef;
+import org.glebchanskiy.associativeprocessor.query.Query.Parameter;
+import org.glebchanskiy.associativeprocessor.query.Query.Predicate;
+import org.glebchanskiy.associativeprocessor.query.Query.Term;
+import org.glebchanskiy.associativeprocessor.search.Range;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компилирует запрос в минимальную последовательность операций над срезами:
+ * 1. условия на одно поле сводятся к пересечению интервалов значений (без знака);
+ *    пустое пересечение делает весь план пустым, вся область значений - условие отбрасывается;
+ * 2. равенства и интервалы вида [c * 2^k, (c + 1) * 2^k - 1] (совпадение старших разрядов)
+ *    объединяются в один поиск с маской, который читает только срезы выбранных разрядов;
+ * 3. остальные поля - поиск по интервалам, по одному проходу на поле;
+ * 4. шаги отбора упорядочиваются по возрастанию оценки селективности (доли области значений),
+ *    при равенстве - по количеству срезов: каждый следующий шаг читает срезы только там,
+ *    где теги ещё остались, а когда они кончаются, выполнение прекращается.
+ */
+public class QueryPlanner {
+    private QueryPlanner() {
+
+    }
+
+    public static QueryPlan plan(Query query, WordSchema schema, int wordWidth, Map<String, Long> parameters) {
+        schema.checkFits(wordWidth);
+        Map<Field, List<long[]>> domains = new LinkedHashMap<>();
+        for (Predicate predicate : query.where()) {
+            Field field = schema.field(predicate.field());
+            domains.merge(field, allowed(predicate, field, parameters), QueryPlanner::intersect);
+        }
+        List<QueryStep.Update> updates = new ArrayList<>();
+        for (Assignment assignment : query.set()) {
+            updates.add(update(assignment, schema, parameters));
+        }
+        if (domains.values().stream().anyMatch(List::isEmpty))
+            return new QueryPlan(query, List.of(), updates, true);
+
+        List<QueryStep.Filter> filters = new ArrayList<>();
+        List<Field> matched = new ArrayList<>();
+        long comparand = 0;
+        long mask = 0;
+        double matchSelectivity = 1;
+        for (Map.Entry<Field, List<long[]>> entry : domains.entrySet()) {
+            Field field = entry.getKey();
+            List<long[]> intervals = entry.getValue();
+            double selectivity = selectivity(field, intervals);
+            if (selectivity >= 1) continue;
+            int shift = wordWidth - field.end();
+            int aligned = intervals.size() == 1 ? aligned(intervals.get(0)) : -1;
+            if (aligned >= 0) {
+                comparand |= (intervals.get(0)[0] >>> aligned) << (shift + aligned);
+                mask |= (mask(field.width()) >>> aligned) << (shift + aligned);
+                matched.add(field);
+                matchSelectivity *= selectivity;
+            } else {
+                filters.add(new QueryStep.RangeStep(field, intervals.stream().map(i -> Range.closed(i[0], i[1])).toList(), selectivity));
+            }
+        }
+        if (!matched.isEmpty())
+            filters.add(new QueryStep.MatchStep(comparand, mask, matched, matchSelectivity));
+        filters.sort(Comparator.comparingDouble(QueryStep.Filter::selectivity).thenComparingInt(QueryStep::slices));
+        return new QueryPlan(query, filters, updates, false);
+    }
+
+    /**
+     * Значения поля, удовлетворяющие условию: упорядоченные непересекающиеся отрезки [lower, upper].
+     */
+    private static List<long[]> allowed(Predicate predicate, Field field, Map<String, Long> parameters) {
+        long value = resolve(predicate.value(), field, parameters);
+        long max = mask(field.width());
+        return switch (predicate.operator()) {
+            case EQ -> interval(value, value);
+            case NE -> {
+                List<long[]> intervals = new ArrayList<>(2);
+                if (value != 0) intervals.add(new long[]{0, value - 1});
+                if (value != max) intervals.add(new long[]{value + 1, max});
+                yield intervals;
+            }
+            case LT -> value == 0 ? List.of() : interval(0, value - 1);
+            case LE -> interval(0, value);
+            case GT -> value == max ? List.of() : interval(value + 1, max);
+            case GE -> interval(value, max);
+            case BETWEEN -> {
+                long upper = resolve(predicate.upper(), field, parameters);
+                yield Long.compareUnsigned(value, upper) > 0 ? List.of() : interval(value, upper);
+            }
+        };
+    }
+
+    private static List<long[]> interval(long lower, long upper) {
+        return List.of(new long[]{lower, upper});
+    }
+
+    private static List<long[]> intersect(List<long[]> first, List<long[]> second) {
+        List<long[]> result = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            long[] a = first.get(i);
+            long[] b = second.get(j);
+            long lower = Long.compareUnsigned(a[0], b[0]) >= 0 ? a[0] : b[0];
+            long upper = Long.compareUnsigned(a[1], b[1]) <= 0 ? a[1] : b[1];
+            if (Long.compareUnsigned(lower, upper) <= 0) result.add(new long[]{lower, upper});
+            if (Long.compareUnsigned(a[1], b[1]) <= 0) i++;
+            else j++;
+        }
+        return result;
+    }
+
+    /**
+     * k, если отрезок - все значения с общими старшими разрядами (c * 2^k .. c * 2^k + 2^k - 1), иначе -1.
+     */
+    private static int aligned(long[] interval) {
+        long span = interval[1] - interval[0];
+        if ((span & (span + 1)) != 0 || (interval[0] & span) != 0) return -1;
+        return Long.bitCount(span);
+    }
+
+    private static double selectivity(Field field, List<long[]> intervals) {
+        double values = 0;
+        for (long[] interval : intervals) {
+            values += unsigned(interval[1] - interval[0]) + 1;
+        }
+        return values / (unsigned(mask(field.width())) + 1);
+    }
+
+    private static QueryStep.Update update(Assignment assignment, WordSchema schema, Map<String, Long> parameters) {
+        Field target = schema.field(assignment.target());
+        Term left = assignment.left();
+        Term right = assignment.right();
+        Arithmetic operator = assignment.operator();
+        if (operator == null) {
+            if (left instanceof FieldRef x) return scale(target, schema.field(x.name()), 1);
+            return new QueryStep.ConstantStep(target, resolve(left, target, parameters));
+        }
+        if (left instanceof FieldRef x && right instanceof FieldRef y) {
+            Field first = schema.field(x.name());
+            Field second = schema.field(y.name());
+            for (Field operand : new Field[]{first, second}) {
+                if (operator == Arithmetic.MULTIPLY ? target.overlaps(operand) : target.overlaps(operand) && target.end() != operand.end())
+                    throw new IllegalArgumentException(assignment + ": " + target + " overlaps " + operand);
+            }
+            return new QueryStep.ArithmeticStep(target, first, operator, second);
+        }
+        if (operator == Arithmetic.MULTIPLY && left instanceof FieldRef x)
+            return scale(target, schema.field(x.name()), constant(right, parameters));
+        if (operator == Arithmetic.MULTIPLY && right instanceof FieldRef y)
+            return scale(target, schema.field(y.name()), constant(left, parameters));
+        if (left instanceof FieldRef || right instanceof FieldRef)
+            throw new IllegalArgumentException("unsupported expression " + assignment + ": expected field op field, field * constant or constant");
+        long a = constant(left, parameters);
+        long b = constant(right, parameters);
+        long value = switch (operator) {
+            case ADD -> Long.compareUnsigned(a + b, a) < 0 ? fail(assignment) : a + b;
+            case SUBTRACT -> Long.compareUnsigned(a, b) < 0 ? fail(assignment) : a - b;
+            case MULTIPLY -> a != 0 && Long.divideUnsigned(a * b, a) != b ? fail(assignment) : a * b;
+        };
+        return new QueryStep.ConstantStep(target, checkFits(value, target));
+    }
+
+    private static QueryStep.Update scale(Field target, Field x, long factor) {
+        if (target.overlaps(x))
+            throw new IllegalArgumentException(target + " overlaps " + x);
+        return new QueryStep.ScaleStep(target, x, factor);
+    }
+
+    private static long fail(Assignment assignment) {
+        throw new IllegalArgumentException("constant overflow in " + assignment);
+    }
+
+    private static long resolve(Term term, Field field, Map<String, Long> parameters) {
+        return checkFits(constant(term, parameters), field);
+    }
+
+    private static long constant(Term term, Map<String, Long> parameters) {
+        if (term instanceof Constant constant) return constant.value();
+        if (term instanceof Parameter parameter) {
+            Long value = parameters.get(parameter.name());
+            if (value == null)
+                throw new IllegalArgumentException("parameter " + parameter + " is not bound");
+            return value;
+        }
+        throw new IllegalArgumentException("expected constant, got field " + term);
+    }
+
+    private static long checkFits(long value, Field field) {
+        if (field.width() < Long.SIZE && (value >>> field.width()) != 0)
+            throw new IllegalArgumentException("value " + Long.toUnsignedString(value) + " does not fit into " + field);
+        return value;
+    }
+
+    private static long mask(int width) {
+        return width == Long.SIZE ? -1L : (1L << width) - 1;
+    }
+
+    private static double unsigned(long value) {
+        return value >= 0 ? value : (value >>> 1) * 2.0 + (value & 1);
+    }
+}
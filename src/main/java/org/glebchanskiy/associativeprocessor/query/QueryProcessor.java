@@ -0,0 +1,171 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import org.glebchanskiy.associativeprocessor.arithmetic.BitSerialAlu;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordSchema;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.search.MatchSearch;
+import org.glebchanskiy.associativeprocessor.search.RangeSearch;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.glebchanskiy.associativeprocessor.server.QueryServer;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выполняет запросы над памятью со схемой слова:
+ * <pre>
+ * QueryProcessor queries = new QueryProcessor(memory, WordSchema.DEFAULT);
+ * QueryPlan plan = queries.compile("WHERE V = 3 AND A BETWEEN :x AND :y SET S = A + B", Map.of("x", 2L, "y", 9L));
+ * QueryResult result = queries.execute(plan);
+ * </pre>
+ * Шаги отбора сужают один вектор тегов (начиная со всех слов) и читают срезы только
+ * в порциях, где теги остались; присваивания выполняются в помеченных словах.
+ * Как и поиски, не рассчитан на одновременные вызовы из нескольких потоков.
+ */
+public class QueryProcessor {
+    private static final Logger log = LoggerFactory.getLogger(QueryProcessor.class);
+    private final AssociativeMemory memory;
+    private final WordSchema schema;
+    private final ShardedExecutor executor;
+    private final MatchSearch matchSearch;
+    private final RangeSearch rangeSearch;
+    private final BitSerialAlu alu;
+    private long[] slice = new long[0];
+
+    public QueryProcessor(AssociativeMemory memory, WordSchema schema) {
+        this(memory, schema, ShardedExecutor.sequential());
+    }
+
+    public QueryProcessor(AssociativeMemory memory, WordSchema schema, ShardedExecutor executor) {
+        schema.checkFits(memory.wordWidth());
+        this.memory = memory;
+        this.schema = schema;
+        this.executor = executor;
+        this.matchSearch = new MatchSearch(memory, executor);
+        this.rangeSearch = new RangeSearch(memory, executor);
+        this.alu = new BitSerialAlu(memory, executor);
+    }
+
+    public WordSchema schema() {
+        return schema;
+    }
+
+    public QueryPlan compile(String text) {
+        return compile(text, Map.of());
+    }
+
+    public QueryPlan compile(String text, Map<String, Long> parameters) {
+        return compile(Query.parse(text), parameters);
+    }
+
+    /**
+     * Разобранный запрос можно компилировать многократно с разными значениями параметров.
+     */
+    public QueryPlan compile(Query query, Map<String, Long> parameters) {
+        return QueryPlanner.plan(query, schema, memory.wordWidth(), parameters);
+    }
+
+    public QueryResult execute(String text) {
+        return execute(compile(text));
+    }
+
+    public QueryResult execute(QueryPlan plan) {
+        int size = memory.wordCount();
+        int length = BitSlices.length(size);
+        long[] overflow = new long[length];
+        List<Integer> remaining = new ArrayList<>(plan.filters().size());
+        if (plan.empty()) {
+            log.debug("skip query with contradictory conditions: {}", plan.query());
+            return new QueryResult(new TagVector(new long[length], size), new TagVector(overflow, size), remaining);
+        }
+        long[] tags = BitSlices.ones(size);
+        int count = size;
+        for (QueryStep.Filter filter : plan.filters()) {
+            if (count == 0) break;
+            if (filter instanceof QueryStep.MatchStep match) {
+                count = matchSearch.refine(match.comparand(), match.mask(), tags);
+            } else if (filter instanceof QueryStep.RangeStep range) {
+                count = rangeSearch.refine(range.field(), range.ranges(), tags);
+            }
+            remaining.add(count);
+        }
+        if (count > 0) {
+            long[] stepOverflow = new long[length];
+            for (QueryStep.Update update : plan.updates()) {
+                if (update instanceof QueryStep.ArithmeticStep step) {
+                    switch (step.operator()) {
+                        case ADD -> alu.add(step.x(), step.y(), step.target(), tags, stepOverflow);
+                        case SUBTRACT -> alu.subtract(step.x(), step.y(), step.target(), tags, stepOverflow);
+                        case MULTIPLY -> alu.multiply(step.x(), step.y(), step.target(), tags, stepOverflow);
+                    }
+                } else if (update instanceof QueryStep.ScaleStep step) {
+                    alu.multiply(step.x(), step.factor(), step.target(), tags, stepOverflow);
+                } else if (update instanceof QueryStep.ConstantStep step) {
+                    assign(step.target(), step.value(), tags);
+                    continue;
+                }
+                for (int i = 0; i < length; i++) {
+                    overflow[i] |= stepOverflow[i];
+                }
+            }
+        }
+        log.debug("query {}: {} words after {} of {} filters", plan.query(), count, remaining.size(), plan.filters().size());
+        return new QueryResult(new TagVector(tags, size), new TagVector(overflow, size), remaining);
+    }
+
+    /**
+     * Аргументы: запрос [количество слов] [параметр=значение ...]. Выполняет запрос над
+     * 16-битными словами схемы WordSchema.DEFAULT со случайными данными и печатает план.
+     */
+    public static void main(String... args) {
+        if (args.length == 0)
+            throw new IllegalArgumentException("usage: query \"WHERE ... SET ...\" [words] [name=value ...]");
+        int words = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20;
+        Map<String, Long> parameters = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            String[] pair = args[i].split("=", 2);
+            if (pair.length != 2)
+                throw new IllegalArgumentException("expected name=value, got " + args[i]);
+            parameters.put(pair[0], Long.decode(pair[1]));
+        }
+        QueryProcessor processor = new QueryProcessor(QueryServer.demoMemory(words), WordSchema.DEFAULT, ShardedExecutor.parallel());
+        QueryPlan plan = processor.compile(args[0], parameters);
+        System.out.print(plan.explain());
+        long start = System.nanoTime();
+        QueryResult result = processor.execute(plan);
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%d of %d words matched (after each filter: %s), %d overflowed, %.3f ms%n",
+                result.count(), words, result.remaining(), result.overflow().cardinality(), nanos / 1e6);
+    }
+
+    /**
+     * Записывает value в поле target помеченных слов; срезы читаются и записываются
+     * только между первым и последним ненулевым элементом tags каждого шарда.
+     */
+    private void assign(Field target, long value, long[] tags) {
+        if (slice.length != tags.length) slice = new long[tags.length];
+        executor.run(tags.length, (from, to) -> {
+            int start = from;
+            int end = to;
+            while (start < end && tags[start] == 0) start++;
+            while (end > start && tags[end - 1] == 0) end--;
+            if (start == end) return 0;
+            for (int bit = 0; bit < target.width(); bit++) {
+                memory.getSlice(target.slice(bit), slice, start, end);
+                boolean one = ((value >>> bit) & 1) == 1;
+                for (int i = start; i < end; i++) {
+                    slice[i] = one ? slice[i] | tags[i] : slice[i] & ~tags[i];
+                }
+                memory.setSlice(target.slice(bit), slice, start, end);
+            }
+            return 0;
+        });
+    }
+}
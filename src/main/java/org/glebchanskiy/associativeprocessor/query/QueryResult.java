@@ -0,0 +1,21 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+
+import java.util.List;
+
+/**
+ * Итог выполнения плана: отобранные слова, слова с переполнением при присваивании
+ * и количество помеченных слов после каждого выполненного шага отбора
+ * (выполнение останавливается, когда теги кончаются).
+ */
+public record QueryResult(TagVector matched, TagVector overflow, List<Integer> remaining) {
+
+    public QueryResult {
+        remaining = List.copyOf(remaining);
+    }
+
+    public int count() {
+        return matched.cardinality();
+    }
+}
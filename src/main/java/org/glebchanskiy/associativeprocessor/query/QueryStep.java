@@ -0,0 +1,123 @@
+package org.glebchanskiy.associativeprocessor.query;
+
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.query.Query.Arithmetic;
+import org.glebchanskiy.associativeprocessor.search.Range;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Шаг скомпилированного запроса: операция над разрядными срезами.
+ */
+public sealed interface QueryStep {
+
+    /**
+     * Количество разрядных срезов, которые шаг читает или записывает (не больше).
+     */
+    int slices();
+
+    /**
+     * Шаг отбора: снимает теги со слов, не удовлетворяющих условию.
+     */
+    sealed interface Filter extends QueryStep {
+        /**
+         * Оценка доли слов, проходящих условие (при равномерном распределении значений).
+         */
+        double selectivity();
+    }
+
+    /**
+     * Точное совпадение полей fields со значениями: один поиск с маской по всем равенствам.
+     */
+    record MatchStep(long comparand, long mask, List<Field> fields, double selectivity) implements Filter {
+        public MatchStep {
+            fields = List.copyOf(fields);
+        }
+
+        @Override
+        public int slices() {
+            return Long.bitCount(mask);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("match %s comparand=%#x mask=%#x", fields.stream().map(Field::name).toList(), comparand, mask);
+        }
+    }
+
+    /**
+     * Значение поля попадает в объединение интервалов.
+     */
+    record RangeStep(Field field, List<Range> ranges, double selectivity) implements Filter {
+        public RangeStep {
+            ranges = List.copyOf(ranges);
+        }
+
+        @Override
+        public int slices() {
+            return field.width();
+        }
+
+        @Override
+        public String toString() {
+            return "range " + field.name() + " in " + ranges.stream()
+                    .map(range -> "[" + Long.toUnsignedString(range.lower()) + ", " + Long.toUnsignedString(range.upper()) + "]")
+                    .collect(Collectors.joining(" | "));
+        }
+    }
+
+    /**
+     * Шаг изменения помеченных слов.
+     */
+    sealed interface Update extends QueryStep {
+        Field target();
+    }
+
+    /**
+     * target = x op y (поразрядно-последовательная арифметика).
+     */
+    record ArithmeticStep(Field target, Field x, Arithmetic operator, Field y) implements Update {
+        @Override
+        public int slices() {
+            return operator == Arithmetic.MULTIPLY
+                    ? target.width() + y.width() * (x.width() + target.width())
+                    : x.width() + y.width() + target.width();
+        }
+
+        @Override
+        public String toString() {
+            return target.name() + " = " + x.name() + " " + operator.symbol() + " " + y.name();
+        }
+    }
+
+    /**
+     * target = x * factor (factor = 1 - копирование поля).
+     */
+    record ScaleStep(Field target, Field x, long factor) implements Update {
+        @Override
+        public int slices() {
+            return target.width() + Long.bitCount(factor) * (x.width() + target.width());
+        }
+
+        @Override
+        public String toString() {
+            return factor == 1 ? target.name() + " = " + x.name() : target.name() + " = " + x.name() + " * " + Long.toUnsignedString(factor);
+        }
+    }
+
+    /**
+     * target = value.
+     */
+    record ConstantStep(Field target, long value) implements Update {
+        @Override
+        public int slices() {
+            return target.width();
+        }
+
+        @Override
+        public String toString() {
+            return target.name() + " = " + Long.toUnsignedString(value);
+        }
+    }
+}
@@ -1,9 +1,53 @@
 package org.glebchanskiy.associativeprocessor.registers;
 
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+
 import java.util.List;
 
+/**
+ * Регистр произвольной ширины. Разряд i хранится в words()[i >>> 6] на позиции i & 63,
+ * так же как срезы памяти и векторы тегов, поэтому регистр может хранить
+ * как слово (ширина wordWidth), так и вектор тегов (ширина wordCount).
+ */
 public interface Register {
     void save(List<Boolean> bits);
 
+    /**
+     * Представление регистра только для чтения (без копирования).
+     */
     List<Boolean> load();
+
+    String name();
+
+    int width();
+
+    boolean get(int index);
+
+    void set(int index, boolean bit);
+
+    /**
+     * Содержимое регистра шириной до 64 разрядов как слово (разряд 0 - старший бит).
+     */
+    long value();
+
+    void setValue(long value);
+
+    /**
+     * Упакованное содержимое регистра без копирования: изменения сразу видны регистру.
+     */
+    long[] words();
+
+    void fill(boolean bit);
+
+    /**
+     * Копирует упакованные разряды source (лишние разряды отбрасываются, недостающие обнуляются).
+     */
+    void copyFrom(long[] source);
+
+    /**
+     * this = operation(this, operand) на месте.
+     */
+    void apply(LogicOperationType operation, long[] operand);
+
+    int cardinality();
 }
@@ -0,0 +1,53 @@
+package org.glebchanskiy.associativeprocessor.registers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Набор именованных регистров процессора произвольного количества и ширины
+ * (буфер, маска, векторы тегов и результатов).
+ */
+public class RegisterFile {
+    private final Map<String, Register> registers = new LinkedHashMap<>();
+
+    public Register create(String name, int width) {
+        if (registers.containsKey(name))
+            throw new IllegalArgumentException("register already exists: " + name);
+        Register register = new RegisterImpl(width, name);
+        registers.put(name, register);
+        return register;
+    }
+
+    /**
+     * Возвращает регистр name, создавая его при отсутствии или пересоздавая при другой ширине.
+     */
+    public Register require(String name, int width) {
+        Register register = registers.get(name);
+        if (register == null || register.width() != width) {
+            register = new RegisterImpl(width, name);
+            registers.put(name, register);
+        }
+        return register;
+    }
+
+    public Register get(String name) {
+        Register register = registers.get(name);
+        if (register == null)
+            throw new IllegalArgumentException("unknown register: " + name);
+        return register;
+    }
+
+    public boolean contains(String name) {
+        return registers.containsKey(name);
+    }
+
+    public Collection<Register> registers() {
+        return Collections.unmodifiableCollection(registers.values());
+    }
+
+    public int size() {
+        return registers.size();
+    }
+}
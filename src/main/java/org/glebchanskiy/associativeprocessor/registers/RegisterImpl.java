@@ -1,38 +1,142 @@
 package org.glebchanskiy.associativeprocessor.registers;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.trace.Trace;
+import org.glebchanskiy.associativeprocessor.trace.TraceEvent;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class RegisterImpl implements Register {
 
-    private static final Logger log = LoggerFactory.getLogger(RegisterImpl.class);
-    private final List<Boolean> bits;
+    private final long[] words;
+    private final int width;
     private final String name;
+    private final int traceName;
+    private final List<Boolean> view = new AbstractList<>() {
+        @Override
+        public Boolean get(int index) {
+            return RegisterImpl.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return width;
+        }
+    };
 
     public RegisterImpl(int size, String name) {
-        this.bits = new ArrayList<>(Collections.nCopies(size, false));
+        this.words = new long[BitSlices.length(size)];
+        this.width = size;
         this.name = name;
+        this.traceName = Trace.name(name);
     }
 
     @Override
     public void save(List<Boolean> bits) {
-        Collections.copy(this.bits, bits);
-        log.info("{} Save ", this);
+        if (bits.size() > width)
+            throw new IndexOutOfBoundsException("Source does not fit in dest");
+        for (int i = 0; i < bits.size(); i++) {
+            set(i, Boolean.TRUE.equals(bits.get(i)));
+        }
+        trace(TraceEvent.REGISTER_SAVE);
     }
 
     @Override
     public List<Boolean> load() {
-        log.info("{} Load", this);
-        return this.bits.stream().toList();
+        trace(TraceEvent.REGISTER_LOAD);
+        return view;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public boolean get(int index) {
+        checkIndex(index);
+        return BitSlices.get(words, index);
+    }
+
+    @Override
+    public void set(int index, boolean bit) {
+        checkIndex(index);
+        BitSlices.set(words, index, bit);
+    }
+
+    @Override
+    public long value() {
+        if (width > Long.SIZE)
+            throw new IllegalStateException(this.name + " is wider than 64 bits: " + width);
+        return width == 0 ? 0 : Long.reverse(words[0]) >>> (Long.SIZE - width);
+    }
+
+    @Override
+    public void setValue(long value) {
+        if (width > Long.SIZE)
+            throw new IllegalStateException(this.name + " is wider than 64 bits: " + width);
+        if (width > 0) words[0] = Long.reverse(value << (Long.SIZE - width));
+        trace(TraceEvent.REGISTER_SAVE);
+    }
+
+    @Override
+    public long[] words() {
+        return words;
+    }
+
+    @Override
+    public void fill(boolean bit) {
+        Arrays.fill(words, bit ? -1L : 0L);
+        maskTail();
+    }
+
+    @Override
+    public void copyFrom(long[] source) {
+        int length = Math.min(words.length, source.length);
+        System.arraycopy(source, 0, words, 0, length);
+        Arrays.fill(words, length, words.length, 0L);
+        maskTail();
+    }
+
+    @Override
+    public void apply(LogicOperationType operation, long[] operand) {
+        operation.apply(words, operand, words, 0, words.length);
+        maskTail();
+    }
+
+    @Override
+    public int cardinality() {
+        return BitSlices.cardinality(words);
+    }
+
+    private void maskTail() {
+        if (words.length > 0) words[words.length - 1] &= BitSlices.tailMask(width);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= width)
+            throw new IndexOutOfBoundsException("bit " + index + " out of [0, " + width + ")");
+    }
+
+    private void trace(TraceEvent event) {
+        if (Trace.ENABLED) Trace.record(event, Math.min(width, Long.SIZE), traceName, 0,
+                width == 0 ? 0 : Long.reverse(words[0]) >>> (Long.SIZE - Math.min(width, Long.SIZE)));
     }
 
     @Override
     public String toString() {
-        return "Register[" + name + "][" + bits.stream().map(b -> Boolean.TRUE.equals(b) ? "1" : "0").collect(Collectors.joining()) + "]";
+        StringBuilder output = new StringBuilder(width);
+        for (int i = 0; i < width; i++) {
+            output.append(get(i) ? '1' : '0');
+        }
+        return "Register[" + name + "][" + output + "]";
     }
 }
@@ -0,0 +1,143 @@
+package org.glebchanskiy.associativeprocessor.search;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.ConcurrentAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Поразрядный поиск максимума/минимума поля и ассоциативная сортировка.
+ * Вектор кандидатов сужается от старшего разряда поля к младшему: если среди
+ * кандидатов есть слова с 1 (для минимума - с 0) в текущем разряде, остаются только они.
+ * Сортировка повторяет поиск экстремума среди ещё не выданных слов,
+ * поэтому выдача первых k адресов стоит k поисков, а не полной сортировки.
+ * Над ConcurrentAssociativeMemory каждый поиск экстремума - одно оптимистичное чтение всех срезов поля.
+ */
+public class ExtremumSearch {
+    private final AssociativeMemory memory;
+    private final ShardedExecutor executor;
+
+    public ExtremumSearch(AssociativeMemory memory) {
+        this(memory, ShardedExecutor.sequential());
+    }
+
+    public ExtremumSearch(AssociativeMemory memory, ShardedExecutor executor) {
+        this.memory = memory;
+        this.executor = executor;
+    }
+
+    public TagVector max(Field field) {
+        return extremum(field, BitSlices.ones(memory.wordCount()), true);
+    }
+
+    public TagVector min(Field field) {
+        return extremum(field, BitSlices.ones(memory.wordCount()), false);
+    }
+
+    /**
+     * Слова с максимальным (largest) или минимальным значением поля среди candidates.
+     * Если кандидатов нет, возвращается пустой вектор.
+     */
+    public TagVector extremum(Field field, long[] candidates, boolean largest) {
+        long[] tags = candidates.clone();
+        refine(field, largest, tags);
+        return new TagVector(tags, memory.wordCount());
+    }
+
+    /**
+     * Оставляет в tags только слова с максимальным (largest) или минимальным значением поля.
+     * Возвращает количество оставшихся помеченных слов (известно из последнего сужения).
+     */
+    public int refine(Field field, boolean largest, long[] tags) {
+        int length = BitSlices.length(memory.wordCount());
+        if (tags.length != length)
+            throw new IllegalArgumentException("expected " + length + " tag words, got " + tags.length);
+        if (ConcurrentAssociativeMemory.unwrap(memory) == null) return narrow(field, largest, tags);
+        long[] original = tags.clone();
+        return ConcurrentAssociativeMemory.read(memory, () -> {
+            System.arraycopy(original, 0, tags, 0, length);
+            return narrow(field, largest, tags);
+        });
+    }
+
+    private int narrow(Field field, boolean largest, long[] tags) {
+        int length = tags.length;
+        if (length > 0) tags[length - 1] &= BitSlices.tailMask(memory.wordCount());
+        long[] current = tags;
+        long[] narrowed = new long[length];
+        long[] slice = new long[length];
+        long invert = largest ? 0L : -1L;
+        long remaining = -1;
+        for (int bit = field.width() - 1; bit >= 0; bit--) {
+            int sliceIndex = field.slice(bit);
+            long[] source = current;
+            long[] target = narrowed;
+            long count = executor.run(length, (from, to) -> {
+                memory.getSlice(sliceIndex, slice, from, to);
+                long matched = 0;
+                for (int i = from; i < to; i++) {
+                    target[i] = source[i] & (slice[i] ^ invert);
+                    matched += Long.bitCount(target[i]);
+                }
+                return matched;
+            });
+            if (count > 0) {
+                narrowed = current;
+                current = target;
+                remaining = count;
+            }
+        }
+        if (current != tags) System.arraycopy(current, 0, tags, 0, length);
+        return remaining >= 0 ? (int) remaining : BitSlices.cardinality(tags);
+    }
+
+    /**
+     * Адреса слов в порядке убывания (descending) или возрастания значения поля.
+     * Равные значения выдаются по возрастанию адреса. Поток ленивый:
+     * sorted(...).limit(k) выполняет только необходимые поиски экстремума.
+     */
+    public IntStream sorted(Field field, boolean descending) {
+        PrimitiveIterator.OfInt iterator = new PrimitiveIterator.OfInt() {
+            private final long[] remaining = BitSlices.ones(memory.wordCount());
+            private int left = memory.wordCount();
+            private PrimitiveIterator.OfInt group = IntStream.empty().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return group.hasNext() || left > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!group.hasNext()) {
+                    if (left == 0) throw new NoSuchElementException();
+                    TagVector extremum = extremum(field, remaining, descending);
+                    long[] words = extremum.words();
+                    for (int i = 0; i < remaining.length; i++) {
+                        remaining[i] &= ~words[i];
+                    }
+                    left -= extremum.cardinality();
+                    group = extremum.iterator();
+                }
+                return group.nextInt();
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliterator(iterator, memory.wordCount(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Адреса k слов с наибольшими (largest) или наименьшими значениями поля.
+     */
+    public int[] top(Field field, int k, boolean largest) {
+        return sorted(field, largest).limit(k).toArray();
+    }
+}
@@ -0,0 +1,202 @@
+package org.glebchanskiy.associativeprocessor.search;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CompressedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.ConcurrentAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.kernel.BitKernels;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.Arrays;
+
+/**
+ * Ассоциативный поиск на точное совпадение с маской.
+ * Каждый срез, разряд которого выбран маской, сравнивается с соответствующим
+ * разрядом образца сразу для всех слов, срезы вне маски не читаются.
+ * Стоимость - (число разрядов маски) * wordCount / 64 операций.
+ * Уточнение (refine) сужает уже помеченное множество и читает срезы только для групп по 64 слова, где теги ещё есть.
+ * Над CompressedAssociativeMemory поиск выполняется по сжатым контейнерам, без разворачивания срезов.
+ * Над ConcurrentAssociativeMemory каждый поиск и уточнение - одно оптимистичное чтение всех срезов.
+ */
+public class MatchSearch {
+    private static final int CHUNK = 256;
+    private final AssociativeMemory memory;
+    private final ShardedExecutor executor;
+    private final BitKernels kernels = BitKernels.get();
+    private long[] slice = new long[0];
+
+    public MatchSearch(AssociativeMemory memory) {
+        this(memory, ShardedExecutor.sequential());
+    }
+
+    public MatchSearch(AssociativeMemory memory, ShardedExecutor executor) {
+        this.memory = memory;
+        this.executor = executor;
+    }
+
+    /**
+     * Помечает слова, совпадающие с comparand во всех разрядах, где mask = 1
+     * (разряд 0 - старший бит слова).
+     */
+    public TagVector search(long comparand, long mask) {
+        return searchAll(new long[]{comparand}, new long[]{mask})[0];
+    }
+
+    /**
+     * Несколько образцов за один проход: срез читается один раз, если он выбран
+     * маской хотя бы одного образца, и сравнивается со всеми образцами сразу.
+     * Результат i-го образца - i-й элемент массива.
+     */
+    public TagVector[] searchAll(long[] comparands, long[] masks) {
+        if (comparands.length != masks.length)
+            throw new IllegalArgumentException(comparands.length + " comparands for " + masks.length + " masks");
+        int size = memory.wordCount();
+        long[][] tags = new long[comparands.length][BitSlices.length(size)];
+        ConcurrentAssociativeMemory.read(memory, () -> matchAll(comparands, masks, tags, false));
+        TagVector[] result = new TagVector[tags.length];
+        for (int q = 0; q < tags.length; q++) {
+            result[q] = new TagVector(tags[q], size);
+        }
+        return result;
+    }
+
+    /**
+     * Записывает в tags слова, совпадающие с comparand в разрядах маски, и возвращает их количество.
+     * Количество считается в том же проходе по шардам, сразу после сравнения.
+     */
+    public int search(long comparand, long mask, long[] tags) {
+        int length = BitSlices.length(memory.wordCount());
+        if (tags.length != length)
+            throw new IllegalArgumentException("expected " + length + " tag words, got " + tags.length);
+        long[][] single = {tags};
+        return (int) (long) ConcurrentAssociativeMemory.read(memory,
+                () -> matchAll(new long[]{comparand}, new long[]{mask}, single, true));
+    }
+
+    /**
+     * Заполняет tags[q] результатом q-го образца. count - вернуть количество помеченных слов
+     * в tags[0] (для одного образца), иначе 0.
+     */
+    private long matchAll(long[] comparands, long[] masks, long[][] tags, boolean count) {
+        int size = memory.wordCount();
+        int width = memory.wordWidth();
+        int length = BitSlices.length(size);
+        if (slice.length != length) slice = new long[length];
+        long anyMask = 0;
+        for (long mask : masks) {
+            anyMask |= mask;
+        }
+        long used = anyMask;
+        CompressedAssociativeMemory compressed = CompressedAssociativeMemory.unwrap(memory);
+        if (compressed != null) {
+            long matched = 0;
+            for (int q = 0; q < tags.length; q++) {
+                long[] t = tags[q];
+                long comparand = comparands[q];
+                long mask = masks[q];
+                matched = executor.run(length, (from, to) -> compressed.match(comparand, mask, t, from, to, false));
+            }
+            CompressedAssociativeMemory.countColumns(memory, Long.bitCount(used & widthMask(width)), 0);
+            return count ? matched : 0;
+        }
+        return executor.run(length, (from, to) -> {
+            for (long[] t : tags) {
+                Arrays.fill(t, from, to, -1L);
+            }
+            for (int bit = 0; bit < width; bit++) {
+                int shift = width - 1 - bit;
+                if (((used >>> shift) & 1) == 0) continue;
+                memory.getSlice(bit, slice, from, to);
+                for (int q = 0; q < tags.length; q++) {
+                    if (((masks[q] >>> shift) & 1) == 0) continue;
+                    kernels.match(tags[q], slice, ((comparands[q] >>> shift) & 1) == 1 ? 0L : -1L, from, to);
+                }
+            }
+            if (to == length && to > from) {
+                for (long[] t : tags) {
+                    t[to - 1] &= BitSlices.tailMask(size);
+                }
+            }
+            if (!count) return 0;
+            long matched = 0;
+            for (int i = from; i < to; i++) {
+                matched += Long.bitCount(tags[0][i]);
+            }
+            return matched;
+        });
+    }
+
+    /**
+     * Снимает теги со слов, не совпадающих с comparand в разрядах маски.
+     * Память обходится порциями по CHUNK элементов срезов; перед каждым срезом порция делится
+     * на отрезки ненулевых элементов tags, и срез читается и сравнивается только на них -
+     * группы по 64 слова без тегов не читаются, полностью непомеченная порция больше не обрабатывается.
+     * Возвращает количество оставшихся помеченных слов.
+     */
+    public int refine(long comparand, long mask, long[] tags) {
+        int length = BitSlices.length(memory.wordCount());
+        if (tags.length != length)
+            throw new IllegalArgumentException("expected " + length + " tag words, got " + tags.length);
+        if (ConcurrentAssociativeMemory.unwrap(memory) == null) return matchTagged(comparand, mask, tags);
+        long[] original = tags.clone();
+        return ConcurrentAssociativeMemory.read(memory, () -> {
+            System.arraycopy(original, 0, tags, 0, length);
+            return matchTagged(comparand, mask, tags);
+        });
+    }
+
+    private int matchTagged(long comparand, long mask, long[] tags) {
+        int width = memory.wordWidth();
+        int length = tags.length;
+        CompressedAssociativeMemory compressed = CompressedAssociativeMemory.unwrap(memory);
+        if (compressed != null) {
+            CompressedAssociativeMemory.countColumns(memory, Long.bitCount(mask & widthMask(width)), 0);
+            return (int) executor.run(length, (from, to) -> compressed.match(comparand, mask, tags, from, to, true));
+        }
+        if (slice.length != length) slice = new long[length];
+        return (int) executor.run(length, (from, to) -> {
+            long count = 0;
+            for (int chunk = from; chunk < to; chunk += CHUNK) {
+                int end = Math.min(to, chunk + CHUNK);
+                for (int bit = 0; bit < width; bit++) {
+                    int shift = width - 1 - bit;
+                    if (((mask >>> shift) & 1) == 0) continue;
+                    long expected = ((comparand >>> shift) & 1) == 1 ? 0L : -1L;
+                    boolean tagged = false;
+                    for (int start = nextTagged(tags, chunk, end); start < end; start = nextTagged(tags, start, end)) {
+                        int stop = nextUntagged(tags, start, end);
+                        memory.getSlice(bit, slice, start, stop);
+                        kernels.match(tags, slice, expected, start, stop);
+                        tagged = true;
+                        start = stop;
+                    }
+                    if (!tagged) break;
+                }
+                for (int i = chunk; i < end; i++) {
+                    count += Long.bitCount(tags[i]);
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Первый ненулевой элемент tags в from..to-1 (или to).
+     */
+    static int nextTagged(long[] tags, int from, int to) {
+        while (from < to && tags[from] == 0) from++;
+        return from;
+    }
+
+    /**
+     * Первый нулевой элемент tags в from..to-1 (или to).
+     */
+    static int nextUntagged(long[] tags, int from, int to) {
+        while (from < to && tags[from] != 0) from++;
+        return from;
+    }
+
+    private static long widthMask(int width) {
+        return width == Long.SIZE ? -1L : (1L << width) - 1;
+    }
+}
@@ -0,0 +1,35 @@
+package org.glebchanskiy.associativeprocessor.search;
+
+/**
+ * Интервал значений поля с включённой или исключённой границей с каждой стороны.
+ */
+public record Range(long lower, boolean lowerInclusive, long upper, boolean upperInclusive) {
+
+    /**
+     * [lower, upper]
+     */
+    public static Range closed(long lower, long upper) {
+        return new Range(lower, true, upper, true);
+    }
+
+    /**
+     * (lower, upper)
+     */
+    public static Range open(long lower, long upper) {
+        return new Range(lower, false, upper, false);
+    }
+
+    /**
+     * [lower, upper)
+     */
+    public static Range closedOpen(long lower, long upper) {
+        return new Range(lower, true, upper, false);
+    }
+
+    /**
+     * (lower, upper]
+     */
+    public static Range openClosed(long lower, long upper) {
+        return new Range(lower, false, upper, true);
+    }
+}
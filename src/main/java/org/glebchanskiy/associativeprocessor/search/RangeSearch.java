@@ -0,0 +1,228 @@
+package org.glebchanskiy.associativeprocessor.search;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CompressedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.ConcurrentAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.kernel.BitKernels;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ассоциативный поиск по интервалам.
+ * Разрядные срезы поля просматриваются от старшего к младшему, для каждой границы
+ * поддерживаются векторы "больше" и "меньше": слово считается решённым на первом
+ * разряде, в котором оно отличается от границы. Все слова сравниваются одновременно,
+ * а все интервалы запроса обрабатываются за один проход по срезам.
+ * Память обходится порциями по CHUNK элементов срезов, поэтому векторы границ
+ * занимают O(CHUNK) независимо от размера памяти и остаются в кэше.
+ * Уточнение (refine) сужает уже помеченное множество и читает срезы только для групп по 64 слова, где теги есть.
+ * Над CompressedAssociativeMemory поиск выполняется по сжатым контейнерам, без разворачивания срезов.
+ * Над ConcurrentAssociativeMemory каждый поиск и уточнение - одно оптимистичное чтение всех срезов.
+ */
+public class RangeSearch {
+    private static final int CHUNK = 256;
+    private final AssociativeMemory memory;
+    private final ShardedExecutor executor;
+    private final BitKernels kernels = BitKernels.get();
+    private long[] slice = new long[0];
+
+    public RangeSearch(AssociativeMemory memory) {
+        this(memory, ShardedExecutor.sequential());
+    }
+
+    public RangeSearch(AssociativeMemory memory, ShardedExecutor executor) {
+        this.memory = memory;
+        this.executor = executor;
+    }
+
+    /**
+     * Помечает слова, поле field которых попадает хотя бы в один из интервалов.
+     */
+    public TagVector search(Field field, Range... ranges) {
+        return search(field, List.of(ranges));
+    }
+
+    public TagVector search(Field field, List<Range> ranges) {
+        return searchEach(field, List.of(ranges))[0];
+    }
+
+    /**
+     * Несколько независимых запросов (каждый - объединение своих интервалов) за один проход:
+     * каждый срез поля читается один раз для границ всех запросов.
+     * Результат i-го запроса - i-й элемент массива.
+     */
+    public TagVector[] searchEach(Field field, List<List<Range>> queries) {
+        int size = memory.wordCount();
+        long[][] tags = new long[queries.size()][BitSlices.length(size)];
+        ConcurrentAssociativeMemory.read(memory, () -> rangeEach(field, queries, tags, false));
+        TagVector[] result = new TagVector[queries.size()];
+        for (int q = 0; q < result.length; q++) {
+            result[q] = new TagVector(tags[q], size);
+        }
+        return result;
+    }
+
+    /**
+     * Записывает в tags слова, поле field которых попадает хотя бы в один из интервалов,
+     * и возвращает их количество. Количество считается по каждой порции сразу после сравнения.
+     */
+    public int search(Field field, List<Range> ranges, long[] tags) {
+        int length = BitSlices.length(memory.wordCount());
+        if (tags.length != length)
+            throw new IllegalArgumentException("expected " + length + " tag words, got " + tags.length);
+        long[][] single = {tags};
+        return (int) (long) ConcurrentAssociativeMemory.read(memory, () -> rangeEach(field, List.of(ranges), single, true));
+    }
+
+    /**
+     * Заполняет tags[q] результатом q-го запроса. count - вернуть количество помеченных слов
+     * в tags[0] (для одного запроса), иначе 0.
+     */
+    private long rangeEach(Field field, List<List<Range>> queries, long[][] tags, boolean count) {
+        int size = memory.wordCount();
+        int length = BitSlices.length(size);
+        if (slice.length != length) slice = new long[length];
+        int bounds = 0;
+        for (List<Range> ranges : queries) {
+            bounds += ranges.size() * 2;
+        }
+        long[] values = new long[bounds];
+        int b = 0;
+        for (List<Range> ranges : queries) {
+            for (Range range : ranges) {
+                values[b++] = checkFits(field, range.lower());
+                values[b++] = checkFits(field, range.upper());
+            }
+        }
+        CompressedAssociativeMemory compressed = CompressedAssociativeMemory.unwrap(memory);
+        if (compressed != null) {
+            long matched = 0;
+            for (int q = 0; q < tags.length; q++) {
+                long[] t = tags[q];
+                List<Range> ranges = queries.get(q);
+                matched = executor.run(length, (from, to) -> compressed.range(field, ranges, t, from, to, false));
+            }
+            CompressedAssociativeMemory.countColumns(memory, field.width(), 0);
+            return count ? matched : 0;
+        }
+        return executor.run(length, (from, to) -> sweep(field, queries, values, tags, from, to, count));
+    }
+
+    private long sweep(Field field, List<List<Range>> queries, long[] values, long[][] tags, int from, int to, boolean count) {
+        int length = BitSlices.length(memory.wordCount());
+        long[][] greater = new long[values.length][CHUNK];
+        long[][] less = new long[values.length][CHUNK];
+        long matched = 0;
+        for (int start = from; start < to; start += CHUNK) {
+            int end = Math.min(to, start + CHUNK);
+            int n = end - start;
+            for (int b = 0; b < values.length; b++) {
+                Arrays.fill(greater[b], 0, n, 0L);
+                Arrays.fill(less[b], 0, n, 0L);
+            }
+            for (int bit = field.width() - 1; bit >= 0; bit--) {
+                memory.getSlice(field.slice(bit), slice, start, end);
+                for (int b = 0; b < values.length; b++) {
+                    kernels.rangeBit(greater[b], less[b], slice, start, n, ((values[b] >>> bit) & 1) == 1);
+                }
+            }
+
+            int b = 0;
+            for (int q = 0; q < queries.size(); q++) {
+                Arrays.fill(tags[q], start, end, 0L);
+                for (Range range : queries.get(q)) {
+                    // слово выше нижней границы: не меньше (включённая) или больше (исключённая)
+                    long[] aboveLower = range.lowerInclusive() ? less[b] : greater[b];
+                    b++;
+                    long[] belowUpper = range.upperInclusive() ? greater[b] : less[b];
+                    b++;
+                    kernels.rangeCombine(aboveLower, range.lowerInclusive() ? -1L : 0L,
+                            belowUpper, range.upperInclusive() ? -1L : 0L, tags[q], start, n);
+                }
+                if (end == length) tags[q][end - 1] &= BitSlices.tailMask(memory.wordCount());
+            }
+            if (count) {
+                for (int i = start; i < end; i++) {
+                    matched += Long.bitCount(tags[0][i]);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Оставляет в tags только слова, поле field которых попадает хотя бы в один из интервалов.
+     * Каждая порция делится на отрезки ненулевых элементов tags, и поразрядный проход выполняется
+     * только на них: срезы групп по 64 слова без тегов не читаются. Возвращает количество оставшихся помеченных слов.
+     */
+    public int refine(Field field, List<Range> ranges, long[] tags) {
+        int length = BitSlices.length(memory.wordCount());
+        if (tags.length != length)
+            throw new IllegalArgumentException("expected " + length + " tag words, got " + tags.length);
+        if (slice.length != length) slice = new long[length];
+        long[] values = new long[ranges.size() * 2];
+        for (int r = 0; r < ranges.size(); r++) {
+            values[2 * r] = checkFits(field, ranges.get(r).lower());
+            values[2 * r + 1] = checkFits(field, ranges.get(r).upper());
+        }
+        if (ConcurrentAssociativeMemory.unwrap(memory) == null) return rangeTagged(field, ranges, values, tags);
+        long[] original = tags.clone();
+        return ConcurrentAssociativeMemory.read(memory, () -> {
+            System.arraycopy(original, 0, tags, 0, length);
+            return rangeTagged(field, ranges, values, tags);
+        });
+    }
+
+    private int rangeTagged(Field field, List<Range> ranges, long[] values, long[] tags) {
+        int length = tags.length;
+        CompressedAssociativeMemory compressed = CompressedAssociativeMemory.unwrap(memory);
+        if (compressed != null) {
+            CompressedAssociativeMemory.countColumns(memory, field.width(), 0);
+            return (int) executor.run(length, (from, to) -> compressed.range(field, ranges, tags, from, to, true));
+        }
+        return (int) executor.run(length, (from, to) -> {
+            long[][] greater = new long[values.length][CHUNK];
+            long[][] less = new long[values.length][CHUNK];
+            long[] matched = new long[CHUNK];
+            long count = 0;
+            for (int start = MatchSearch.nextTagged(tags, from, to); start < to; start = MatchSearch.nextTagged(tags, start, to)) {
+                int end = MatchSearch.nextUntagged(tags, start, Math.min(to, start + CHUNK));
+                int n = end - start;
+                for (int b = 0; b < values.length; b++) {
+                    Arrays.fill(greater[b], 0, n, 0L);
+                    Arrays.fill(less[b], 0, n, 0L);
+                }
+                Arrays.fill(matched, 0, n, 0L);
+                for (int bit = field.width() - 1; bit >= 0; bit--) {
+                    memory.getSlice(field.slice(bit), slice, start, end);
+                    for (int b = 0; b < values.length; b++) {
+                        kernels.rangeBit(greater[b], less[b], slice, start, n, ((values[b] >>> bit) & 1) == 1);
+                    }
+                }
+                for (int r = 0; r < ranges.size(); r++) {
+                    Range range = ranges.get(r);
+                    long[] aboveLower = range.lowerInclusive() ? less[2 * r] : greater[2 * r];
+                    long[] belowUpper = range.upperInclusive() ? greater[2 * r + 1] : less[2 * r + 1];
+                    kernels.rangeCombine(aboveLower, range.lowerInclusive() ? -1L : 0L,
+                            belowUpper, range.upperInclusive() ? -1L : 0L, matched, 0, n);
+                }
+                for (int i = 0; i < n; i++) {
+                    tags[start + i] &= matched[i];
+                    count += Long.bitCount(tags[start + i]);
+                }
+                start = end;
+            }
+            return count;
+        });
+    }
+
+    private static long checkFits(Field field, long value) {
+        if (field.width() < Long.SIZE && (value >>> field.width()) != 0)
+            throw new IllegalArgumentException("value " + value + " does not fit into " + field);
+        return value;
+    }
+}
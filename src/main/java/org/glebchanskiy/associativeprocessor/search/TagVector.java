@@ -0,0 +1,130 @@
+package org.glebchanskiy.associativeprocessor.search;
+
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Вектор тегов: по одному биту на слово памяти (бит слова j в words[j >>> 6], позиция j & 63).
+ */
+public class TagVector implements Iterable<Integer> {
+    private final long[] words;
+    private final int size;
+
+    public TagVector(long[] words, int size) {
+        if (words.length != BitSlices.length(size))
+            throw new IllegalArgumentException("expected " + BitSlices.length(size) + " words for " + size + " tags, got " + words.length);
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Вектор, в котором помечены все size слов.
+     */
+    public static TagVector all(int size) {
+        return new TagVector(BitSlices.ones(size), size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int index) {
+        return BitSlices.get(words, index);
+    }
+
+    /**
+     * Количество помеченных слов.
+     */
+    public int cardinality() {
+        return BitSlices.cardinality(words);
+    }
+
+    /**
+     * Первое помеченное слово (первый ответивший) или -1.
+     */
+    public int first() {
+        return next(0);
+    }
+
+    /**
+     * Первое помеченное слово с адресом не меньше from или -1.
+     */
+    public int next(int from) {
+        if (from >= size) return -1;
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) return (index << 6) + Long.numberOfTrailingZeros(word);
+            if (++index == words.length) return -1;
+            word = words[index];
+        }
+    }
+
+    /**
+     * Снимает тег с первого ответившего слова и возвращает его адрес (или -1):
+     * классическое поочерёдное разрешение множественного отклика.
+     */
+    public int pollFirst() {
+        for (int index = 0; index < words.length; index++) {
+            long word = words[index];
+            if (word != 0) {
+                words[index] = word & (word - 1);
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Адреса помеченных слов по возрастанию.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = first();
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) throw new NoSuchElementException();
+                int current = next;
+                next = TagVector.this.next(current + 1);
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Независимая копия: её изменение (pollFirst, запись в words()) не затрагивает этот вектор.
+     */
+    public TagVector copy() {
+        return new TagVector(words.clone(), size);
+    }
+
+    /**
+     * Упакованное представление (без копирования).
+     */
+    public long[] words() {
+        return words;
+    }
+
+    public BitSet toBitSet() {
+        return BitSet.valueOf(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            output.append(get(i) ? '1' : '0');
+        }
+        return "TagVector[" + output + "]";
+    }
+}
@@ -0,0 +1,133 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+import org.glebchanskiy.associativeprocessor.enums.ArithmeticOperationType;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.metrics.LatencyHistogram;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Генератор нагрузки для сервиса запросов: clients соединений в отдельных потоках
+ * непрерывно отправляют запросы в течение seconds секунд. writes процентов запросов -
+ * логические и арифметические операции, остальные поровну поиск по образцу и по интервалу.
+ * Печатает пропускную способность и перцентили задержки на стороне клиента и статистику сервера
+ * (в том числе средний размер объединённой пачки поиска).
+ * При port = 0 запускает встроенный сервер над памятью из words слов.
+ * Клиент, получивший ошибку, прекращает работу и учитывается в errors.
+ */
+public class LoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private LoadGenerator() {
+
+    }
+
+    public record Report(int clients, long operations, long errors, double seconds, LatencyHistogram latency,
+                         ServiceStats server) {
+
+        public double operationsPerSecond() {
+            return operations / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d clients: %d requests (%d failed clients) in %.1f s, %.0f requests/s, "
+                            + "round trip p50=%.1fus p99=%.1fus max=%.1fus%nserver: %s",
+                    clients, operations, errors, seconds, operationsPerSecond(),
+                    latency.percentile(0.5) / 1e3, latency.percentile(0.99) / 1e3, latency.max() / 1e3, server);
+        }
+    }
+
+    public static Report run(int port, int clients, long durationNanos, int writesPercent) throws IOException, InterruptedException {
+        ServiceStats shape;
+        try (QueryClient client = new QueryClient(port)) {
+            shape = client.stats(true);
+        }
+        Field word = new Field("word", 0, shape.wordWidth());
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder operations = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + durationNanos;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            Random random = new Random(c);
+            Thread thread = new Thread(() -> {
+                try (QueryClient client = new QueryClient(port)) {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        request(client, random, word, writesPercent);
+                        latency.record(System.nanoTime() - start);
+                        operations.increment();
+                    }
+                } catch (IOException e) {
+                    errors.increment();
+                    log.warn("client stopped", e);
+                }
+            }, "load-client-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        long started = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        try (QueryClient client = new QueryClient(port)) {
+            return new Report(clients, operations.sum(), errors.sum(), seconds, latency, client.stats(false));
+        }
+    }
+
+    private static void request(QueryClient client, Random random, Field word, int writesPercent) throws IOException {
+        int width = word.width();
+        long values = width == Long.SIZE ? -1L : (1L << width) - 1;
+        if (random.nextInt(100) < writesPercent) {
+            if (random.nextBoolean()) {
+                client.logic(width - 1, random.nextInt(width), random.nextInt(width), LogicOperationType.FUNC_6);
+            } else {
+                long key = random.nextLong() & ((1L << WordLayout.DEFAULT.key().width()) - 1);
+                client.arithmetic(ArithmeticOperationType.SUM_AJ_BJ_MASKED, key);
+            }
+        } else if (random.nextBoolean()) {
+            long mask = values & ~(values >>> (random.nextInt(width) + 1));
+            client.matchCount(random.nextLong() & values, mask);
+        } else {
+            long lower = random.nextLong() & values;
+            long upper = lower + ((random.nextLong() & values) >>> 4);
+            client.rangeCount(word, Range.closed(lower, Math.min(upper, values)));
+        }
+    }
+
+    /**
+     * Аргументы: [порт, 0 - встроенный сервер] [клиенты] [секунды] [процент записей] [слов во встроенном сервере].
+     */
+    public static void main(String... args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int writes = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int words = args.length > 4 ? Integer.parseInt(args[4]) : 1 << 20;
+        QueryServer embedded = null;
+        if (port == 0) {
+            QueryEngine engine = new QueryEngine(QueryServer.demoMemory(words), WordLayout.DEFAULT,
+                    ShardedExecutor.parallel(), QueryEngine.DEFAULT_WINDOW_NANOS);
+            embedded = new QueryServer(engine, 0);
+            port = embedded.port();
+        }
+        try {
+            System.out.println(run(port, clients, TimeUnit.SECONDS.toNanos(seconds), writes));
+        } finally {
+            if (embedded != null) embedded.close();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+import org.glebchanskiy.associativeprocessor.enums.ArithmeticOperationType;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.glebchanskiy.associativeprocessor.server.Request.ArithmeticRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.LogicRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.MatchRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.RangeRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.StatsRequest;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Двоичный протокол сервиса (big-endian). Каждое сообщение - кадр: int длина, затем тело.
+ * Запросы (первый байт тела - код операции):
+ * <pre>
+ * MATCH      byte flags, long comparand, long mask
+ * RANGE      byte flags, byte offset, byte width, short n, n * (byte bounds, long lower, long upper)
+ * LOGIC      byte operation, int destination, int source1, int source2
+ * ARITHMETIC byte operation, long key
+ * STATS      byte flags
+ * </pre>
+ * flags: WITH_TAGS - вернуть вектор тегов (для STATS - RESET), bounds: LOWER_INCLUSIVE | UPPER_INCLUSIVE.
+ * Ответ начинается с байта статуса. ERROR: short длина, сообщение UTF-8. OK:
+ * <pre>
+ * MATCH, RANGE int size, int count, byte hasTags, [long * ((size + 63) / 64)]
+ * LOGIC, ARITHMETIC -
+ * STATS      int wordCount, int wordWidth, long requests, long searches, long sweeps,
+ *            long p50, long p99, long max, double requestsPerSecond,
+ *            long cacheHits, long cacheMisses, long cacheInvalidations
+ * </pre>
+ */
+public class Protocol {
+    public static final byte MATCH = 1;
+    public static final byte RANGE = 2;
+    public static final byte LOGIC = 3;
+    public static final byte ARITHMETIC = 4;
+    public static final byte STATS = 5;
+
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+
+    public static final byte WITH_TAGS = 1;
+    public static final byte RESET = 1;
+    public static final byte LOWER_INCLUSIVE = 1;
+    public static final byte UPPER_INCLUSIVE = 2;
+
+    /**
+     * Максимальная длина кадра запроса, принимаемого сервером.
+     */
+    public static final int MAX_REQUEST_LENGTH = 1 << 20;
+
+    private Protocol() {
+
+    }
+
+    /**
+     * Читает кадр целиком. Возвращает null, если поток закрыт между кадрами.
+     */
+    public static ByteBuffer readFrame(DataInputStream in, int maxLength) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > maxLength)
+            throw new IOException("invalid frame length " + length);
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return ByteBuffer.wrap(frame);
+    }
+
+    /**
+     * Пишет кадр из содержимого frame от 0 до position (буфер после заполнения, без flip).
+     */
+    public static void writeFrame(DataOutputStream out, ByteBuffer frame) throws IOException {
+        out.writeInt(frame.position());
+        out.write(frame.array(), frame.arrayOffset(), frame.position());
+    }
+
+    public static ByteBuffer encode(Request request) {
+        if (request instanceof MatchRequest match) {
+            return ByteBuffer.allocate(18).put(MATCH).put(match.withTags() ? WITH_TAGS : 0)
+                    .putLong(match.comparand()).putLong(match.mask());
+        } else if (request instanceof RangeRequest range) {
+            if (range.ranges().size() > Short.MAX_VALUE)
+                throw new IllegalArgumentException("too many ranges: " + range.ranges().size());
+            ByteBuffer frame = ByteBuffer.allocate(6 + range.ranges().size() * 17)
+                    .put(RANGE).put(range.withTags() ? WITH_TAGS : 0)
+                    .put((byte) range.field().offset()).put((byte) range.field().width())
+                    .putShort((short) range.ranges().size());
+            for (Range r : range.ranges()) {
+                frame.put((byte) ((r.lowerInclusive() ? LOWER_INCLUSIVE : 0) | (r.upperInclusive() ? UPPER_INCLUSIVE : 0)))
+                        .putLong(r.lower()).putLong(r.upper());
+            }
+            return frame;
+        } else if (request instanceof LogicRequest logic) {
+            return ByteBuffer.allocate(14).put(LOGIC).put((byte) logic.operation().ordinal())
+                    .putInt(logic.destination()).putInt(logic.source1()).putInt(logic.source2());
+        } else if (request instanceof ArithmeticRequest arithmetic) {
+            return ByteBuffer.allocate(10).put(ARITHMETIC).put((byte) arithmetic.operation().ordinal())
+                    .putLong(arithmetic.key());
+        } else if (request instanceof StatsRequest stats) {
+            return ByteBuffer.allocate(2).put(STATS).put(stats.reset() ? RESET : 0);
+        }
+        throw new IllegalArgumentException("unknown request " + request);
+    }
+
+    /**
+     * Разбирает запрос. Некорректный кадр - IllegalArgumentException.
+     */
+    public static Request decode(ByteBuffer frame) {
+        try {
+            byte opcode = frame.get();
+            Request request = switch (opcode) {
+                case MATCH -> {
+                    boolean withTags = (frame.get() & WITH_TAGS) != 0;
+                    yield new MatchRequest(frame.getLong(), frame.getLong(), withTags);
+                }
+                case RANGE -> {
+                    boolean withTags = (frame.get() & WITH_TAGS) != 0;
+                    Field field = new Field("field", frame.get() & 0xFF, frame.get() & 0xFF);
+                    int count = frame.getShort();
+                    if (count < 1)
+                        throw new IllegalArgumentException("range request without ranges");
+                    List<Range> ranges = new ArrayList<>(count);
+                    for (int r = 0; r < count; r++) {
+                        byte bounds = frame.get();
+                        ranges.add(new Range(frame.getLong(), (bounds & LOWER_INCLUSIVE) != 0,
+                                frame.getLong(), (bounds & UPPER_INCLUSIVE) != 0));
+                    }
+                    yield new RangeRequest(field, ranges, withTags);
+                }
+                case LOGIC -> {
+                    LogicOperationType operation = enumOf(LogicOperationType.values(), frame.get());
+                    yield new LogicRequest(frame.getInt(), frame.getInt(), frame.getInt(), operation);
+                }
+                case ARITHMETIC -> new ArithmeticRequest(enumOf(ArithmeticOperationType.values(), frame.get()), frame.getLong());
+                case STATS -> new StatsRequest((frame.get() & RESET) != 0);
+                default -> throw new IllegalArgumentException("unknown opcode " + opcode);
+            };
+            if (frame.hasRemaining())
+                throw new IllegalArgumentException(frame.remaining() + " trailing bytes after " + request);
+            return request;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated request", e);
+        }
+    }
+
+    public static ByteBuffer ok() {
+        return ByteBuffer.allocate(1).put(OK);
+    }
+
+    public static ByteBuffer tags(TagVector tags, boolean withTags) {
+        long[] words = tags.words();
+        ByteBuffer frame = ByteBuffer.allocate(10 + (withTags ? words.length * Long.BYTES : 0))
+                .put(OK).putInt(tags.size()).putInt(tags.cardinality()).put((byte) (withTags ? 1 : 0));
+        if (withTags) {
+            frame.asLongBuffer().put(words);
+            frame.position(frame.position() + words.length * Long.BYTES);
+        }
+        return frame;
+    }
+
+    public static ByteBuffer stats(ServiceStats stats) {
+        return ByteBuffer.allocate(1 + 2 * Integer.BYTES + 10 * Long.BYTES).put(OK)
+                .putInt(stats.wordCount()).putInt(stats.wordWidth())
+                .putLong(stats.requests()).putLong(stats.searches()).putLong(stats.sweeps())
+                .putLong(stats.p50Nanos()).putLong(stats.p99Nanos()).putLong(stats.maxNanos())
+                .putDouble(stats.requestsPerSecond())
+                .putLong(stats.cacheHits()).putLong(stats.cacheMisses()).putLong(stats.cacheInvalidations());
+    }
+
+    public static ByteBuffer error(String message) {
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, Short.MAX_VALUE);
+        return ByteBuffer.allocate(3 + length).put(ERROR).putShort((short) length).put(bytes, 0, length);
+    }
+
+    /**
+     * Проверяет статус ответа; для ERROR бросает IOException с сообщением сервера.
+     */
+    public static ByteBuffer checkStatus(ByteBuffer response) throws IOException {
+        byte status = response.get();
+        if (status == OK) return response;
+        if (status != ERROR)
+            throw new IOException("unknown status " + status);
+        byte[] message = new byte[response.getShort()];
+        response.get(message);
+        throw new IOException("server error: " + new String(message, StandardCharsets.UTF_8));
+    }
+
+    public static TagVector readTags(ByteBuffer response) throws IOException {
+        int size = response.getInt();
+        response.getInt();
+        if (response.get() == 0)
+            throw new IOException("response without tags");
+        long[] words = new long[BitSlices.length(size)];
+        response.asLongBuffer().get(words);
+        return new TagVector(words, size);
+    }
+
+    public static int readCount(ByteBuffer response) {
+        response.getInt();
+        return response.getInt();
+    }
+
+    public static ServiceStats readStats(ByteBuffer response) {
+        return new ServiceStats(response.getInt(), response.getInt(), response.getLong(), response.getLong(),
+                response.getLong(), response.getLong(), response.getLong(), response.getLong(), response.getDouble(),
+                response.getLong(), response.getLong(), response.getLong());
+    }
+
+    private static <E extends Enum<E>> E enumOf(E[] values, byte ordinal) {
+        if (ordinal < 0 || ordinal >= values.length)
+            throw new IllegalArgumentException("unknown " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal);
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,82 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+import org.glebchanskiy.associativeprocessor.enums.ArithmeticOperationType;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.glebchanskiy.associativeprocessor.server.Request.ArithmeticRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.LogicRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.MatchRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.RangeRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.StatsRequest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Клиент сервиса запросов. Одно соединение, запросы выполняются по одному; не потокобезопасен.
+ * Ошибка на стороне сервера - IOException с сообщением сервера.
+ */
+public class QueryClient implements Closeable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public QueryClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    public int matchCount(long comparand, long mask) throws IOException {
+        return Protocol.readCount(call(new MatchRequest(comparand, mask, false)));
+    }
+
+    public TagVector match(long comparand, long mask) throws IOException {
+        return Protocol.readTags(call(new MatchRequest(comparand, mask, true)));
+    }
+
+    public int rangeCount(Field field, Range... ranges) throws IOException {
+        return Protocol.readCount(call(new RangeRequest(field, List.of(ranges), false)));
+    }
+
+    public TagVector range(Field field, Range... ranges) throws IOException {
+        return Protocol.readTags(call(new RangeRequest(field, List.of(ranges), true)));
+    }
+
+    public void logic(int destination, int source1, int source2, LogicOperationType operation) throws IOException {
+        call(new LogicRequest(destination, source1, source2, operation));
+    }
+
+    public void arithmetic(ArithmeticOperationType operation, long key) throws IOException {
+        call(new ArithmeticRequest(operation, key));
+    }
+
+    public ServiceStats stats(boolean reset) throws IOException {
+        return Protocol.readStats(call(new StatsRequest(reset)));
+    }
+
+    private ByteBuffer call(Request request) throws IOException {
+        Protocol.writeFrame(out, Protocol.encode(request));
+        out.flush();
+        ByteBuffer response = Protocol.readFrame(in, Integer.MAX_VALUE);
+        if (response == null)
+            throw new IOException("connection closed by server");
+        return Protocol.checkStatus(response);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,327 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CountingAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.TrackingAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.cache.CacheStats;
+import org.glebchanskiy.associativeprocessor.cache.CachingSearch;
+import org.glebchanskiy.associativeprocessor.cache.SearchCache;
+import org.glebchanskiy.associativeprocessor.cache.SearchQuery;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.metrics.LatencyHistogram;
+import org.glebchanskiy.associativeprocessor.metrics.ProcessorMetrics;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.registers.Register;
+import org.glebchanskiy.associativeprocessor.search.MatchSearch;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.glebchanskiy.associativeprocessor.search.RangeSearch;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.glebchanskiy.associativeprocessor.server.Request.ArithmeticRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.LogicRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.MatchRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.RangeRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Исполняет запросы сервиса в одном потоке, который единолично владеет памятью и процессором,
+ * поэтому синхронизация памяти не нужна.
+ * Подряд идущие поисковые запросы объединяются в пачку: после первого поискового запроса
+ * поток ждёт остальные не дольше окна window, но не дольше, чем нужно, чтобы запрос прислал
+ * каждый подключённый клиент (у клиента не больше одного запроса в работе).
+ * Пачка обрабатывается за один проход по срезам на все образцы (MatchSearch.searchAll)
+ * и по одному проходу на каждое поле поиска по интервалам (RangeSearch.searchEach).
+ * Изменяющие память запросы прерывают пачку и выполняются строго в порядке поступления.
+ * Результаты поиска кэшируются (SearchCache) с проверкой по версиям срезов: повторный запрос
+ * по неизменённым срезам отвечается без прохода и в пачку не попадает. Поток владеет памятью
+ * единолично, поэтому версии можно читать после поиска.
+ */
+public class QueryEngine implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(QueryEngine.class);
+    public static final long DEFAULT_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    public static final int MAX_BATCH = 256;
+
+    private final AssociativeMemory memory;
+    private final SearchCache cache;
+    private final WordLayout layout;
+    private final AssociativeProcessor processor;
+    private final MatchSearch matchSearch;
+    private final RangeSearch rangeSearch;
+    private final long windowNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger clients = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private volatile long since = System.nanoTime();
+
+    private record Pending(Request request, long received, CompletableFuture<Object> result) {
+    }
+
+    public QueryEngine(AssociativeMemory memory, WordLayout layout, ShardedExecutor executor, long windowNanos) {
+        this(memory, layout, executor, windowNanos, CachingSearch.DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * cacheBytes - лимит кэша результатов поиска, 0 - без кэша.
+     */
+    public QueryEngine(AssociativeMemory memory, WordLayout layout, ShardedExecutor executor, long windowNanos, long cacheBytes) {
+        if (cacheBytes > 0) {
+            TrackingAssociativeMemory tracking = memory instanceof TrackingAssociativeMemory t ? t : new TrackingAssociativeMemory(memory);
+            this.memory = tracking;
+            this.cache = new SearchCache(tracking, cacheBytes);
+        } else {
+            this.memory = memory;
+            this.cache = null;
+        }
+        this.layout = layout;
+        AssociativeMemory counted = ProcessorMetrics.ENABLED ? new CountingAssociativeMemory(this.memory) : this.memory;
+        this.processor = new AssociativeProcessorImpl(counted, layout, executor);
+        this.matchSearch = new MatchSearch(counted, executor);
+        this.rangeSearch = new RangeSearch(counted, executor);
+        this.windowNanos = windowNanos;
+        this.worker = new Thread(this::run, "query-engine");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Ставит запрос в очередь. Результат: TagVector для поиска, null для остальных запросов.
+     * Некорректный запрос завершает future с IllegalArgumentException.
+     */
+    public CompletableFuture<Object> submit(Request request) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("engine is closed"));
+            return result;
+        }
+        try {
+            validate(request);
+        } catch (IllegalArgumentException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        queue.add(new Pending(request, System.nanoTime(), result));
+        return result;
+    }
+
+    public void connected() {
+        clients.incrementAndGet();
+    }
+
+    public void disconnected() {
+        clients.decrementAndGet();
+    }
+
+    /**
+     * Метрики процессора сервиса; счётчики памяти учитывают и объединённые проходы поиска.
+     */
+    public ProcessorMetrics metrics() {
+        return processor.metrics();
+    }
+
+    public ServiceStats stats(boolean reset) {
+        long now = System.nanoTime();
+        long count = requests.sum();
+        CacheStats cacheStats = cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats(reset);
+        ServiceStats stats = new ServiceStats(memory.wordCount(), memory.wordWidth(), count, searches.sum(), sweeps.sum(),
+                latency.percentile(0.5), latency.percentile(0.99), latency.max(),
+                count / Math.max(1e-9, (now - since) / 1e9),
+                cacheStats.hits(), cacheStats.misses(), cacheStats.invalidations());
+        if (reset) {
+            requests.reset();
+            searches.reset();
+            sweeps.reset();
+            latency.reset();
+            since = now;
+        }
+        return stats;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                if (first.request().search()) collect(batch);
+                execute(batch);
+            } catch (InterruptedException e) {
+                // close() завершает запросы из очереди, а уже взятые в пачку - здесь
+                for (Pending pending : batch) {
+                    pending.result().completeExceptionally(new IllegalStateException("engine is closed"));
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("batch of {} requests failed", batch.size(), e);
+                for (Pending pending : batch) {
+                    pending.result().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Добирает в пачку поисковые запросы, пришедшие в пределах окна.
+     * Первый изменяющий запрос включается в пачку последним.
+     */
+    private void collect(List<Pending> batch) throws InterruptedException {
+        long deadline = batch.get(0).received() + windowNanos;
+        while (batch.size() < MAX_BATCH) {
+            Pending next = queue.poll();
+            if (next == null) {
+                long wait = deadline - System.nanoTime();
+                if (wait <= 0 || batch.size() >= clients.get()) return;
+                next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                if (next == null) return;
+            }
+            batch.add(next);
+            if (!next.request().search()) return;
+        }
+    }
+
+    private void execute(List<Pending> batch) {
+        int start = 0;
+        for (int i = 0; i <= batch.size(); i++) {
+            if (i < batch.size() && batch.get(i).request().search()) continue;
+            if (i > start) sweep(batch.subList(start, i));
+            if (i < batch.size()) command(batch.get(i));
+            start = i + 1;
+        }
+    }
+
+    private void sweep(List<Pending> group) {
+        List<Pending> matches = new ArrayList<>();
+        Map<Field, List<Pending>> ranges = new LinkedHashMap<>();
+        for (Pending pending : group) {
+            TagVector cached = cache == null ? null : cache.get(query(pending.request()));
+            if (cached != null) {
+                done(pending, cached);
+                continue;
+            }
+            if (pending.request() instanceof MatchRequest) matches.add(pending);
+            else ranges.computeIfAbsent(((RangeRequest) pending.request()).field(), f -> new ArrayList<>()).add(pending);
+        }
+        if (!matches.isEmpty()) {
+            long[] comparands = new long[matches.size()];
+            long[] masks = new long[matches.size()];
+            for (int q = 0; q < comparands.length; q++) {
+                MatchRequest match = (MatchRequest) matches.get(q).request();
+                comparands[q] = match.comparand();
+                masks[q] = match.mask();
+            }
+            complete(matches, matchSearch.searchAll(comparands, masks));
+        }
+        for (Map.Entry<Field, List<Pending>> entry : ranges.entrySet()) {
+            List<List<Range>> queries = new ArrayList<>();
+            for (Pending pending : entry.getValue()) {
+                queries.add(((RangeRequest) pending.request()).ranges());
+            }
+            complete(entry.getValue(), rangeSearch.searchEach(entry.getKey(), queries));
+        }
+        if (log.isDebugEnabled()) log.debug("sweep {} searches ({} match, {} range fields)", group.size(), matches.size(), ranges.size());
+    }
+
+    private void complete(List<Pending> group, TagVector[] results) {
+        sweeps.increment();
+        for (int q = 0; q < results.length; q++) {
+            searches.increment();
+            if (cache != null) {
+                SearchQuery query = query(group.get(q).request());
+                cache.put(query, cache.versions(query), results[q]);
+            }
+            done(group.get(q), results[q]);
+        }
+    }
+
+    private static SearchQuery query(Request request) {
+        if (request instanceof MatchRequest match) return new SearchQuery.Match(match.comparand(), match.mask());
+        RangeRequest range = (RangeRequest) request;
+        return new SearchQuery.RangeQuery(range.field(), range.ranges());
+    }
+
+    private void command(Pending pending) {
+        try {
+            if (pending.request() instanceof LogicRequest logic) {
+                processor.execSliceLogicalOperation(logic.destination(), logic.source1(), logic.source2(), logic.operation());
+            } else if (pending.request() instanceof ArithmeticRequest arithmetic) {
+                Field key = layout.key();
+                int shift = memory.wordWidth() - key.end();
+                long keyMask = (key.width() == Long.SIZE ? -1L : (1L << key.width()) - 1) << shift;
+                Register mask = processor.registers().get("mask");
+                mask.fill(true);
+                mask.setValue((mask.value() & ~keyMask) | ((arithmetic.key() << shift) & keyMask));
+                processor.execArithmeticOperation(arithmetic.operation());
+            }
+            done(pending, null);
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private void done(Pending pending, Object result) {
+        requests.increment();
+        latency.record(System.nanoTime() - pending.received());
+        pending.result().complete(result);
+    }
+
+    private void validate(Request request) {
+        int width = memory.wordWidth();
+        if (request instanceof RangeRequest range) {
+            Field field = range.field();
+            if (field.end() > width)
+                throw new IllegalArgumentException(field + " does not fit into word of " + width + " bits");
+            for (Range r : range.ranges()) {
+                if (field.width() < Long.SIZE && ((r.lower() | r.upper()) >>> field.width()) != 0)
+                    throw new IllegalArgumentException(r + " does not fit into " + field.width() + " bits");
+            }
+        } else if (request instanceof LogicRequest logic) {
+            for (int slice : new int[]{logic.destination(), logic.source1(), logic.source2()}) {
+                if (slice < 0 || slice >= width)
+                    throw new IllegalArgumentException("slice " + slice + " out of [0, " + width + ")");
+            }
+        } else if (request instanceof ArithmeticRequest arithmetic) {
+            layout.checkFits(width);
+            if (layout.key().width() < Long.SIZE && (arithmetic.key() >>> layout.key().width()) != 0)
+                throw new IllegalArgumentException("key " + arithmetic.key() + " does not fit into " + layout.key());
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Pending pending : queue) {
+            pending.result().completeExceptionally(new IllegalStateException("engine is closed"));
+        }
+        log.info("close Query Engine: {}", stats(false));
+    }
+}
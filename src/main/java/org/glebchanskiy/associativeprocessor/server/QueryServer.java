@@ -0,0 +1,163 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.PackedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.metrics.ProcessorMetrics;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.search.TagVector;
+import org.glebchanskiy.associativeprocessor.server.Request.MatchRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.RangeRequest;
+import org.glebchanskiy.associativeprocessor.server.Request.StatsRequest;
+import org.glebchanskiy.associativeprocessor.workload.DataGenerator;
+import org.glebchanskiy.associativeprocessor.workload.Distribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис запросов к ассоциативному процессору на loopback-интерфейсе (протокол - см. Protocol).
+ * Каждое соединение обслуживается своим потоком: запрос читается, передаётся в QueryEngine,
+ * ответ отправляется после исполнения. Клиент отправляет следующий запрос после ответа на предыдущий.
+ */
+public class QueryServer implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(QueryServer.class);
+    public static final int DEFAULT_PORT = 7070;
+
+    private final QueryEngine engine;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "query-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread acceptor;
+
+    /**
+     * port = 0 - любой свободный порт (см. port()).
+     * Метрики процессора публикуются в JMX с именем query-server-порт.
+     */
+    public QueryServer(QueryEngine engine, int port) throws IOException {
+        this.engine = engine;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::accept, "query-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+        if (ProcessorMetrics.ENABLED) engine.metrics().register("query-server-" + port());
+        log.info("Query Server listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public QueryEngine engine() {
+        return engine;
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) log.warn("accept failed", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        engine.connected();
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            ByteBuffer frame;
+            while ((frame = Protocol.readFrame(in, Protocol.MAX_REQUEST_LENGTH)) != null) {
+                Protocol.writeFrame(out, handle(frame));
+                out.flush();
+            }
+        } catch (SocketException e) {
+            log.debug("connection {} closed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } catch (IOException e) {
+            log.warn("connection {} failed", socket.getRemoteSocketAddress(), e);
+        } finally {
+            engine.disconnected();
+        }
+    }
+
+    private ByteBuffer handle(ByteBuffer frame) {
+        try {
+            Request request = Protocol.decode(frame);
+            if (request instanceof StatsRequest stats) return Protocol.stats(engine.stats(stats.reset()));
+            Object result = engine.submit(request).get();
+            if (request instanceof MatchRequest match) return Protocol.tags((TagVector) result, match.withTags());
+            if (request instanceof RangeRequest range) return Protocol.tags((TagVector) result, range.withTags());
+            return Protocol.ok();
+        } catch (IllegalArgumentException e) {
+            return Protocol.error(e.getMessage());
+        } catch (ExecutionException e) {
+            return Protocol.error(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Protocol.error("interrupted");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+        try {
+            acceptor.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        engine.close();
+        engine.metrics().unregister();
+        log.info("Query Server stopped");
+    }
+
+    /**
+     * Память wordCount x 16 с равномерно распределёнными словами (seed = 42) для сервиса и генератора нагрузки.
+     */
+    public static AssociativeMemory demoMemory(int wordCount) {
+        AssociativeMemory memory = new PackedAssociativeMemory(wordCount, 16);
+        new DataGenerator(Distribution.UNIFORM, 42).fill(memory, ShardedExecutor.parallel());
+        return memory;
+    }
+
+    /**
+     * Аргументы: [порт] [количество слов] [окно объединения, мкс].
+     */
+    public static void main(String... args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int words = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20;
+        long window = args.length > 2 ? TimeUnit.MICROSECONDS.toNanos(Long.parseLong(args[2])) : QueryEngine.DEFAULT_WINDOW_NANOS;
+        QueryEngine engine = new QueryEngine(demoMemory(words), WordLayout.DEFAULT, ShardedExecutor.parallel(), window);
+        QueryServer server = new QueryServer(engine, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                log.warn("close failed", e);
+            }
+        }));
+        Thread.currentThread().join();
+    }
+}
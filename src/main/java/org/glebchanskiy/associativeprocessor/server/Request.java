@@ -0,0 +1,57 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+import org.glebchanskiy.associativeprocessor.enums.ArithmeticOperationType;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.search.Range;
+
+import java.util.List;
+
+/**
+ * Запрос к сервису. Поисковые запросы (MatchRequest, RangeRequest) не изменяют память
+ * и могут объединяться в один проход по срезам, остальные выполняются по очереди.
+ */
+public sealed interface Request {
+
+    default boolean search() {
+        return false;
+    }
+
+    /**
+     * Точное совпадение с образцом в разрядах маски. withTags - вернуть вектор тегов, а не только количество.
+     */
+    record MatchRequest(long comparand, long mask, boolean withTags) implements Request {
+        @Override
+        public boolean search() {
+            return true;
+        }
+    }
+
+    /**
+     * Слова, поле field которых попадает хотя бы в один из интервалов.
+     */
+    record RangeRequest(Field field, List<Range> ranges, boolean withTags) implements Request {
+        @Override
+        public boolean search() {
+            return true;
+        }
+    }
+
+    /**
+     * Срез destination = f(source1, source2).
+     */
+    record LogicRequest(int destination, int source1, int source2, LogicOperationType operation) implements Request {
+    }
+
+    /**
+     * Арифметика над полями A и B в словах, поле V которых равно key.
+     */
+    record ArithmeticRequest(ArithmeticOperationType operation, long key) implements Request {
+    }
+
+    /**
+     * Статистика сервиса, reset - начать новый интервал измерений.
+     */
+    record StatsRequest(boolean reset) implements Request {
+    }
+}
@@ -0,0 +1,24 @@
+package org.glebchanskiy.associativeprocessor.server;
+
+/**
+ * Статистика сервиса с последнего сброса.
+ * sweeps - проходы по срезам для поиска: searches / sweeps - средний размер объединённой пачки.
+ * Задержка измеряется на сервере от получения запроса до готовности ответа.
+ * Поиски, ответ на которые взят из кэша, не входят в searches.
+ */
+public record ServiceStats(int wordCount, int wordWidth, long requests, long searches, long sweeps,
+                           long p50Nanos, long p99Nanos, long maxNanos, double requestsPerSecond,
+                           long cacheHits, long cacheMisses, long cacheInvalidations) {
+
+    public double searchesPerSweep() {
+        return sweeps == 0 ? 0 : (double) searches / sweeps;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("memory %dx%d, %d requests (%.0f/s), %d searches in %d sweeps (%.1f per sweep), "
+                        + "p50=%.1fus p99=%.1fus max=%.1fus, cache %d hits, %d misses, %d invalidations",
+                wordCount, wordWidth, requests, requestsPerSecond, searches, sweeps, searchesPerSweep(),
+                p50Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3, cacheHits, cacheMisses, cacheInvalidations);
+    }
+}
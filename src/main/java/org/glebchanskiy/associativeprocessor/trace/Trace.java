@@ -0,0 +1,30 @@
+package org.glebchanskiy.associativeprocessor.trace;
+
+/**
+ * Глобальная трассировка горячих путей (чтение/запись памяти, регистры).
+ * Включается свойством -Dassociativeprocessor.trace=true, размер буфера -
+ * -Dassociativeprocessor.trace.capacity (по умолчанию 65536 событий).
+ * ENABLED - константа, поэтому проверки if (Trace.ENABLED) при выключенной
+ * трассировке удаляются JIT-компилятором.
+ */
+public final class Trace {
+    public static final boolean ENABLED = Boolean.getBoolean("associativeprocessor.trace");
+    private static final TraceBuffer BUFFER = new TraceBuffer(
+            ENABLED ? Integer.getInteger("associativeprocessor.trace.capacity", 1 << 16) : 1);
+
+    private Trace() {
+
+    }
+
+    public static void record(TraceEvent event, int width, int address, long before, long after) {
+        if (ENABLED) BUFFER.record(event, width, address, before, after);
+    }
+
+    public static int name(String name) {
+        return BUFFER.name(name);
+    }
+
+    public static TraceBuffer buffer() {
+        return BUFFER;
+    }
+}
@@ -0,0 +1,109 @@
+package org.glebchanskiy.associativeprocessor.trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.glebchanskiy.associativeprocessor.util.APUtils.toBits;
+import static org.glebchanskiy.associativeprocessor.util.APUtils.toDig;
+import static org.glebchanskiy.associativeprocessor.util.APUtils.toHex;
+
+/**
+ * Кольцевой буфер двоичных событий трассировки. Память выделяется один раз,
+ * запись события - три long без создания объектов. При переполнении
+ * затираются самые старые события.
+ * Запись события:
+ * <pre>
+ * [0] код события (8 бит) | ширина слова (8 бит) | адрес (32 бита)
+ * [1] значение до (для GET/SET - номер строки, для SLICE_READ/SLICE_WRITE - первое слово диапазона)
+ * [2] значение после (для SLICE_READ/SLICE_WRITE - слово за концом диапазона)
+ * </pre>
+ * Для SLICE_READ/SLICE_WRITE адрес - номер среза: одно событие на диапазон среза, а не на каждое слово.
+ */
+public class TraceBuffer {
+    private static final int RECORD_LENGTH = 3;
+    private final long[] records;
+    private final int capacity;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<String> names = new CopyOnWriteArrayList<>();
+
+    public TraceBuffer(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.records = new long[capacity * RECORD_LENGTH];
+    }
+
+    /**
+     * Регистрирует имя (например, регистра) и возвращает его номер для поля адреса.
+     * Синхронизирован, чтобы одно имя, зарегистрированное из разных потоков, получило один номер;
+     * декодирование читает список без блокировки.
+     */
+    public synchronized int name(String name) {
+        int index = names.indexOf(name);
+        if (index >= 0) return index;
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    public void record(TraceEvent event, int width, int address, long before, long after) {
+        int offset = (int) (sequence.getAndIncrement() % capacity) * RECORD_LENGTH;
+        records[offset] = ((long) event.ordinal() << 56) | ((long) (width & 0xFF) << 48) | (address & 0xFFFFFFFFL);
+        records[offset + 1] = before;
+        records[offset + 2] = after;
+    }
+
+    /**
+     * Количество событий, записанных с момента создания или очистки (включая затёртые).
+     */
+    public long recorded() {
+        return sequence.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        sequence.set(0);
+    }
+
+    /**
+     * Декодирует сохранённые события от старых к новым в формате прежних сообщений лога.
+     */
+    public void dump(Appendable output) throws IOException {
+        long end = sequence.get();
+        for (long i = Math.max(0, end - capacity); i < end; i++) {
+            int offset = (int) (i % capacity) * RECORD_LENGTH;
+            output.append(decode(records[offset], records[offset + 1], records[offset + 2])).append('\n');
+        }
+    }
+
+    public String dump() {
+        StringBuilder output = new StringBuilder();
+        try {
+            dump(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toString();
+    }
+
+    private String decode(long header, long before, long after) {
+        TraceEvent event = TraceEvent.values()[(int) (header >>> 56)];
+        int width = (int) ((header >>> 48) & 0xFF);
+        int address = (int) header;
+        return switch (event) {
+            case GET -> "Get " + before + ":" + address + " -> " + after;
+            case SET -> "Set " + before + ":" + address + " <- " + after;
+            case READ -> "READ " + toHex(address) + " " + toDig(toBits(after, width));
+            case WRITE -> "WRITE " + toHex(address) + " " + toDig(toBits(after, width));
+            case REGISTER_SAVE -> "Register[" + names.get(address) + "][" + toDig(toBits(after, width)) + "] Save ";
+            case REGISTER_LOAD -> "Register[" + names.get(address) + "][" + toDig(toBits(after, width)) + "] Load";
+            case SLICE_READ -> "READ SLICE " + toHex(address) + " words " + before + ".." + (after - 1);
+            case SLICE_WRITE -> "WRITE SLICE " + toHex(address) + " words " + before + ".." + (after - 1);
+        };
+    }
+}
@@ -0,0 +1,5 @@
+package org.glebchanskiy.associativeprocessor.trace;
+
+public enum TraceEvent {
+    GET, SET, READ, WRITE, REGISTER_SAVE, REGISTER_LOAD, SLICE_READ, SLICE_WRITE
+}
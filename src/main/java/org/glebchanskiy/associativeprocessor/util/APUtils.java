@@ -1,5 +1,6 @@
 package org.glebchanskiy.associativeprocessor.util;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -27,11 +28,10 @@ public class APUtils {
 
     public static Integer toDecimal(List<Boolean> binary) {
         int decimal = 0;
-        int power = binary.size();
         for (Boolean bit : binary) {
-            power--;
+            decimal <<= 1;
             if (Boolean.TRUE.equals(bit))
-                decimal += Math.pow(2, power);
+                decimal |= 1;
         }
         return decimal;
     }
@@ -45,4 +45,27 @@ public class APUtils {
         }
         return 0;
     }
+
+    /**
+     * Разворачивает упакованное слово в список разрядов (разряд 0 - старший бит).
+     */
+    public static List<Boolean> toBits(long word, int width) {
+        List<Boolean> bits = new ArrayList<>(width);
+        for (int k = width - 1; k >= 0; k--) {
+            bits.add(((word >>> k) & 1) == 1);
+        }
+        return bits;
+    }
+
+    /**
+     * Упаковывает список разрядов в слово (разряд 0 - старший бит).
+     */
+    public static long toLong(List<Boolean> bits) {
+        long word = 0;
+        for (Boolean bit : bits) {
+            word <<= 1;
+            if (Boolean.TRUE.equals(bit)) word |= 1;
+        }
+        return word;
+    }
 }
@@ -0,0 +1,70 @@
+package org.glebchanskiy.associativeprocessor.util;
+
+import java.util.Arrays;
+
+/**
+ * Операции над упакованными разрядными срезами (бит слова j в slice[j >>> 6], позиция j & 63).
+ */
+public class BitSlices {
+    private BitSlices() {
+
+    }
+
+    /**
+     * Количество long, необходимое для хранения среза из bits разрядов.
+     */
+    public static int length(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Маска значащих разрядов последнего long среза из bits разрядов.
+     */
+    public static long tailMask(int bits) {
+        int rest = bits & 63;
+        return rest == 0 ? -1L : (1L << rest) - 1;
+    }
+
+    public static boolean get(long[] slice, int index) {
+        return (slice[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public static void set(long[] slice, int index, boolean bit) {
+        if (bit) slice[index >>> 6] |= 1L << index;
+        else slice[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Срез из bits единиц (все слова помечены).
+     */
+    public static long[] ones(int bits) {
+        long[] slice = new long[length(bits)];
+        Arrays.fill(slice, -1L);
+        if (slice.length > 0) slice[slice.length - 1] &= tailMask(bits);
+        return slice;
+    }
+
+    public static int cardinality(long[] slice) {
+        int count = 0;
+        for (long l : slice) {
+            count += Long.bitCount(l);
+        }
+        return count;
+    }
+
+    /**
+     * Транспонирует на месте битовую матрицу 64x64: после вызова бит j элемента i
+     * равен бывшему биту i элемента j. Обмен блоками 32x32, 16x16, ... 1x1 -
+     * 6 проходов по 32 пары вместо 4096 обращений к отдельным битам.
+     */
+    public static void transpose64(long[] block) {
+        long mask = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+            for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+                long t = ((block[k] >>> j) ^ block[k | j]) & mask;
+                block[k | j] ^= t;
+                block[k] ^= t << j;
+            }
+        }
+    }
+}
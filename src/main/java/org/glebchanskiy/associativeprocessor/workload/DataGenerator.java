@@ -0,0 +1,76 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.util.BitSlices;
+
+import java.util.SplittableRandom;
+
+/**
+ * Воспроизводимое заполнение памяти по распределению.
+ * Каждая группа из 64 слов получает свой генератор, выведенный из зерна и номера группы,
+ * поэтому содержимое памяти зависит только от зерна, а не от количества шардов.
+ * Группа транспонируется в 64 элемента срезов (BitSlices.transpose64), шарды пишут
+ * непересекающиеся диапазоны срезов.
+ */
+public class DataGenerator {
+    /**
+     * Не равен шагу SplittableRandom (0x9E3779B97F4A7C15), иначе последовательности соседних групп
+     * совпадали бы со сдвигом на одно значение.
+     */
+    private static final long GROUP_STRIDE = 0xD1B54A32D192ED03L;
+
+    private final Distribution distribution;
+    private final long seed;
+    private final long[] centers;
+
+    public DataGenerator(Distribution distribution, long seed) {
+        this.distribution = distribution;
+        this.seed = seed;
+        this.centers = Distribution.centers(seed);
+    }
+
+    /**
+     * Заполняет всю память. Буфер срезов занимает столько же памяти, сколько упакованная память.
+     */
+    public void fill(AssociativeMemory memory, ShardedExecutor executor) {
+        int width = memory.wordWidth();
+        int wordCount = memory.wordCount();
+        long mask = mask(width);
+        int length = BitSlices.length(wordCount);
+        long[][] slices = new long[width][length];
+        executor.run(length, (from, to) -> {
+            long[] block = new long[Long.SIZE];
+            for (int group = from; group < to; group++) {
+                SplittableRandom random = new SplittableRandom(seed + group * GROUP_STRIDE);
+                int words = Math.min(Long.SIZE, wordCount - (group << 6));
+                for (int j = 0; j < Long.SIZE; j++) {
+                    block[j] = j < words ? distribution.next(random, mask, centers) : 0;
+                }
+                BitSlices.transpose64(block);
+                for (int k = 0; k < width; k++) {
+                    slices[k][group] = block[width - 1 - k];
+                }
+            }
+            for (int k = 0; k < width; k++) {
+                memory.setSlice(k, slices[k], from, to);
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * Значение операнда запроса из того же распределения, что и данные.
+     */
+    public long next(SplittableRandom random, int width) {
+        return distribution.next(random, mask(width), centers);
+    }
+
+    public Distribution distribution() {
+        return distribution;
+    }
+
+    static long mask(int width) {
+        return width == Long.SIZE ? -1L : (1L << width) - 1;
+    }
+}
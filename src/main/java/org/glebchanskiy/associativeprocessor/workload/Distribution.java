@@ -0,0 +1,60 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+import java.util.SplittableRandom;
+
+/**
+ * Распределение значений слов и операндов запросов.
+ */
+public enum Distribution {
+    /**
+     * Все значения равновероятны.
+     */
+    UNIFORM,
+    /**
+     * Степенное: вероятность убывает к большим значениям, малые значения - "горячие" ключи.
+     */
+    SKEWED,
+    /**
+     * Значения сгруппированы нормально вокруг CLUSTERS центров, выбранных по зерну.
+     */
+    CLUSTERED;
+
+    public static final int CLUSTERS = 8;
+    private static final double SKEW = 4;
+    private static final double CLUSTER_SPREAD = 1.0 / 64;
+
+    /**
+     * Значение не шире mask (mask - младшие единичные разряды). centers - центры кластеров.
+     */
+    long next(SplittableRandom random, long mask, long[] centers) {
+        return switch (this) {
+            case UNIFORM -> random.nextLong() & mask;
+            case SKEWED -> scale(Math.pow(random.nextDouble(), SKEW), mask);
+            case CLUSTERED -> {
+                double center = Long.remainderUnsigned(centers[random.nextInt(centers.length)], mask == -1L ? Long.MAX_VALUE : mask + 1);
+                double value = center + gaussian(random) * CLUSTER_SPREAD * unsigned(mask);
+                yield scale(Math.min(1, Math.max(0, value / unsigned(mask))), mask);
+            }
+        };
+    }
+
+    /**
+     * Центры кластеров для зерна seed.
+     */
+    static long[] centers(long seed) {
+        return new SplittableRandom(seed).longs(CLUSTERS).toArray();
+    }
+
+    private static long scale(double fraction, long mask) {
+        return Math.min(mask, (long) (fraction * unsigned(mask))) & mask;
+    }
+
+    private static double unsigned(long mask) {
+        return mask == -1L ? Long.MAX_VALUE : mask;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
@@ -0,0 +1,35 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+/**
+ * Виды операций нагрузки.
+ */
+public enum Operation {
+    /**
+     * Поиск по образцу со случайной маской старших разрядов.
+     */
+    MATCH,
+    /**
+     * Поиск слов в интервале.
+     */
+    RANGE,
+    /**
+     * Поиск максимума поля A.
+     */
+    MAX,
+    /**
+     * Логическая операция над двумя срезами с записью в старший срез.
+     */
+    LOGIC,
+    /**
+     * S = A + B в словах, у которых V совпадает с ключом.
+     */
+    ADD,
+    /**
+     * Запись слова по случайному адресу.
+     */
+    WRITE;
+
+    public boolean write() {
+        return this == LOGIC || this == ADD || this == WRITE;
+    }
+}
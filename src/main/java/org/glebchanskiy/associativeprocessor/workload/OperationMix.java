@@ -0,0 +1,58 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Доли операций в нагрузке (веса, не обязательно в сумме 100).
+ * Текстовая форма: "match=40,range=40,max=5,logic=5,add=5,write=5".
+ */
+public class OperationMix {
+    public static final OperationMix READ_MOSTLY = parse("match=45,range=45,max=5,logic=1,add=2,write=2");
+    public static final OperationMix BALANCED = parse("match=25,range=25,max=10,logic=10,add=15,write=15");
+
+    private final int[] weights;
+    private final int total;
+
+    private OperationMix(int[] weights) {
+        this.weights = weights;
+        this.total = Arrays.stream(weights).sum();
+        if (total <= 0)
+            throw new IllegalArgumentException("operation mix is empty");
+    }
+
+    public static OperationMix parse(String text) {
+        int[] weights = new int[Operation.values().length];
+        for (String part : text.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2)
+                throw new IllegalArgumentException("expected operation=weight: " + part);
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0)
+                throw new IllegalArgumentException("negative weight: " + part);
+            weights[Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = weight;
+        }
+        return new OperationMix(weights);
+    }
+
+    public Operation pick(SplittableRandom random) {
+        int point = random.nextInt(total);
+        for (Operation operation : Operation.values()) {
+            point -= weights[operation.ordinal()];
+            if (point < 0) return operation;
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            if (weights[operation.ordinal()] == 0) continue;
+            if (output.length() > 0) output.append(',');
+            output.append(operation.name().toLowerCase(Locale.ROOT)).append('=').append(weights[operation.ordinal()]);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+
+/**
+ * Параметры нагрузки: words слов шириной wordWidth, заполненных по distribution,
+ * warmup операций прогрева и operations измеряемых операций в долях mix.
+ * Данные и последовательность операций определяются только зерном seed.
+ * parallel - шардирование операций и заполнения по ядрам.
+ */
+public record WorkloadConfig(int words, int wordWidth, Distribution distribution, OperationMix mix,
+                             int warmup, int operations, long seed, boolean parallel) {
+
+    public WorkloadConfig {
+        if (words < 1)
+            throw new IllegalArgumentException("words must be positive: " + words);
+        if (warmup < 0 || operations < 1)
+            throw new IllegalArgumentException("expected warmup >= 0 and operations > 0: " + warmup + ", " + operations);
+        WordLayout.DEFAULT.checkFits(wordWidth);
+    }
+
+    public static WorkloadConfig defaults() {
+        return new WorkloadConfig(1 << 20, 16, Distribution.UNIFORM, OperationMix.READ_MOSTLY, 1_000, 10_000, 42, true);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d x %d-bit words, %s data, mix %s, %d (+%d warmup) operations, seed %d, %s",
+                words, wordWidth, distribution, mix, operations, warmup, seed, parallel ? "parallel" : "sequential");
+    }
+}
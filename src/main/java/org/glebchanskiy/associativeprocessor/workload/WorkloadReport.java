@@ -0,0 +1,37 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+import org.glebchanskiy.associativeprocessor.metrics.LatencyHistogram;
+import org.glebchanskiy.associativeprocessor.metrics.MetricsSnapshot;
+
+import java.util.Map;
+
+/**
+ * Итог прогона нагрузки. checksum - сумма размеров откликов поиска: при одном зерне
+ * совпадает у всех сборок, что проверяет, что сравниваются одинаковые вычисления.
+ * Выделение памяти - сумма по живым потокам (поток, завершившийся во время прогона, не учитывается).
+ * costs - обращения к памяти по видам операций процессора за измеряемую часть прогона.
+ */
+public record WorkloadReport(WorkloadConfig config, double generationSeconds, double seconds,
+                             Map<Operation, LatencyHistogram> latency, long gcCount, long gcMillis,
+                             long allocatedBytes, long checksum, MetricsSnapshot costs) {
+
+    public double operationsPerSecond() {
+        return config.operations() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        output.append(config).append('\n');
+        output.append(String.format("generation %.2f s, %d operations in %.2f s, %.0f operations/s%n",
+                generationSeconds, config.operations(), seconds, operationsPerSecond()));
+        output.append(String.format("%-8s %10s %12s %12s %12s %12s%n", "op", "count", "mean, us", "p50, us", "p99, us", "max, us"));
+        latency.forEach((operation, histogram) -> output.append(String.format("%-8s %10d %12.1f %12.1f %12.1f %12.1f%n",
+                operation, histogram.count(), histogram.mean() / 1e3, histogram.percentile(0.5) / 1e3,
+                histogram.percentile(0.99) / 1e3, histogram.max() / 1e3)));
+        output.append(String.format("gc: %d collections, %d ms; allocated %.1f MB (%.0f B/operation); checksum %d",
+                gcCount, gcMillis, allocatedBytes / 1048576.0, (double) allocatedBytes / config.operations(), checksum));
+        output.append('\n').append(costs);
+        return output.toString();
+    }
+}
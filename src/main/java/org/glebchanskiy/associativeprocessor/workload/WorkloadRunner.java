@@ -0,0 +1,168 @@
+package org.glebchanskiy.associativeprocessor.workload;
+
+import org.glebchanskiy.associativeprocessor.AssociativeProcessor;
+import org.glebchanskiy.associativeprocessor.AssociativeProcessorImpl;
+import org.glebchanskiy.associativeprocessor.associativememory.AssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.CountingAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.associativememory.PackedAssociativeMemory;
+import org.glebchanskiy.associativeprocessor.enums.LogicOperationType;
+import org.glebchanskiy.associativeprocessor.layout.Field;
+import org.glebchanskiy.associativeprocessor.layout.WordLayout;
+import org.glebchanskiy.associativeprocessor.metrics.LatencyHistogram;
+import org.glebchanskiy.associativeprocessor.metrics.ProcessorMetrics;
+import org.glebchanskiy.associativeprocessor.parallel.ShardedExecutor;
+import org.glebchanskiy.associativeprocessor.search.MatchSearch;
+import org.glebchanskiy.associativeprocessor.search.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Сквозной прогон нагрузки на упакованной памяти с раскладкой WordLayout.DEFAULT:
+ * заполнение данными, прогрев, измерение задержки каждой операции по видам,
+ * количества и времени сборок мусора и выделенной памяти. Стоимость операций процессора
+ * (ProcessorMetrics) сбрасывается после прогрева и входит в отчёт.
+ */
+public class WorkloadRunner {
+    private static final Logger log = LoggerFactory.getLogger(WorkloadRunner.class);
+    private static final long OPERATIONS_SEED = 0x5DEECE66DL;
+
+    private final WorkloadConfig config;
+    private final AssociativeMemory memory;
+    private final AssociativeProcessor processor;
+    private final MatchSearch matchSearch;
+    private final DataGenerator generator;
+    private final WordLayout layout = WordLayout.DEFAULT;
+    private final Field word;
+    private final double generationSeconds;
+
+    public WorkloadRunner(WorkloadConfig config) {
+        ShardedExecutor executor = config.parallel() ? ShardedExecutor.parallel() : ShardedExecutor.sequential();
+        this.config = config;
+        this.memory = new PackedAssociativeMemory(config.words(), config.wordWidth());
+        this.generator = new DataGenerator(config.distribution(), config.seed());
+        long start = System.nanoTime();
+        generator.fill(memory, executor);
+        this.generationSeconds = (System.nanoTime() - start) / 1e9;
+        AssociativeMemory counted = ProcessorMetrics.ENABLED ? new CountingAssociativeMemory(memory) : memory;
+        this.processor = new AssociativeProcessorImpl(counted, layout, executor);
+        this.matchSearch = new MatchSearch(counted, executor);
+        this.word = new Field("word", 0, config.wordWidth());
+    }
+
+    public static WorkloadReport run(WorkloadConfig config) {
+        return new WorkloadRunner(config).run();
+    }
+
+    public WorkloadReport run() {
+        SplittableRandom random = new SplittableRandom(config.seed() ^ OPERATIONS_SEED);
+        log.info("workload: {}", config);
+        for (int i = 0; i < config.warmup(); i++) {
+            execute(config.mix().pick(random), random);
+        }
+        processor.metrics().reset();
+        Map<Operation, LatencyHistogram> latency = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latency.put(operation, new LatencyHistogram());
+        }
+        long checksum = 0;
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < config.operations(); i++) {
+            Operation operation = config.mix().pick(random);
+            long begin = System.nanoTime();
+            checksum += execute(operation, random);
+            latency.get(operation).record(System.nanoTime() - begin);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        latency.values().removeIf(histogram -> histogram.count() == 0);
+        return new WorkloadReport(config, generationSeconds, seconds, latency, gcCount() - gcCount,
+                gcMillis() - gcMillis, allocatedBytes() - allocated, checksum, processor.metrics().snapshot());
+    }
+
+    /**
+     * Выполняет операцию и возвращает размер отклика (0 для операций без отклика).
+     */
+    private long execute(Operation operation, SplittableRandom random) {
+        int width = config.wordWidth();
+        long values = DataGenerator.mask(width);
+        return switch (operation) {
+            case MATCH -> {
+                long mask = values & ~(values >>> (random.nextInt(width) + 1));
+                yield matchSearch.search(generator.next(random, width), mask).cardinality();
+            }
+            case RANGE -> {
+                long lower = generator.next(random, width);
+                long upper = Math.min(values, lower + ((random.nextLong() & values) >>> 4));
+                yield processor.searchInRanges(word, Range.closed(lower, upper)).cardinality();
+            }
+            case MAX -> processor.searchMax(layout.first()).cardinality();
+            case LOGIC -> {
+                processor.execSliceLogicalOperation(width - 1, random.nextInt(width), random.nextInt(width), LogicOperationType.FUNC_6);
+                yield 0;
+            }
+            case ADD -> {
+                Field key = layout.key();
+                int shift = width - key.end();
+                long value = random.nextLong() & DataGenerator.mask(key.width());
+                yield processor.add(layout.first(), layout.second(), layout.result(),
+                        matchSearch.search(value << shift, DataGenerator.mask(key.width()) << shift)).cardinality();
+            }
+            case WRITE -> {
+                memory.setWord(random.nextInt(config.words()), generator.next(random, width));
+                yield 0;
+            }
+        };
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return 0;
+        long bytes = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            bytes += Math.max(0, allocated);
+        }
+        return bytes;
+    }
+
+    /**
+     * Аргументы: [слов] [uniform|skewed|clustered] [доли операций] [операций] [зерно] [parallel|sequential].
+     */
+    public static void main(String... args) {
+        WorkloadConfig defaults = WorkloadConfig.defaults();
+        WorkloadConfig config = new WorkloadConfig(
+                args.length > 0 ? Integer.parseInt(args[0]) : defaults.words(),
+                defaults.wordWidth(),
+                args.length > 1 ? Distribution.valueOf(args[1].toUpperCase(Locale.ROOT)) : defaults.distribution(),
+                args.length > 2 ? OperationMix.parse(args[2]) : defaults.mix(),
+                defaults.warmup(),
+                args.length > 3 ? Integer.parseInt(args[3]) : defaults.operations(),
+                args.length > 4 ? Long.parseLong(args[4]) : defaults.seed(),
+                args.length <= 5 || !args[5].equals("sequential"));
+        System.out.println(run(config));
+    }
+}